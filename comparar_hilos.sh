@@ -0,0 +1,55 @@
+#!/bin/bash
+
+# Compara hilos de plataforma contra hilos virtuales con la misma carga. El límite de peticiones
+# (productos.concurrencia.limite-peticiones) solo actúa en el modo virtual.
+# Requisitos: Java 21+, MariaDB de docker compose en localhost:3307 y la herramienta "hey"
+# (https://github.com/rakyll/hey). Uso: ./comparar_hilos.sh [concurrencia] [duracion]
+
+CONCURRENCIA=${1:-1000}
+DURACION=${2:-30s}
+PUERTO=8090
+URL="http://localhost:$PUERTO/api/productos"
+JAR=target/microservicio-spring-mariadb-0.0.1-SNAPSHOT.jar
+
+if ! java -version 2>&1 | grep -qE 'version "(2[1-9]|[3-9][0-9])'; then
+  echo "❌ Se necesita Java 21 o superior para los hilos virtuales"
+  exit 1
+fi
+command -v hey > /dev/null || { echo "❌ No se encontró 'hey' en el PATH"; exit 1; }
+
+echo "🔨 Empaquetando el microservicio..."
+./mvnw -q -DskipTests package || exit 1
+
+echo "📦 Levantando MariaDB..."
+docker compose up -d mariadb
+
+ejecutar() {
+  local virtuales=$1
+  echo -e "\n🚀 Arrancando con spring.threads.virtual.enabled=$virtuales"
+  java -jar "$JAR" --server.port=$PUERTO \
+    --spring.datasource.url=jdbc:mariadb://localhost:3307/microspringdb \
+    --spring.jpa.show-sql=false --logging.level.org.hibernate.SQL=INFO \
+    --logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO \
+    --spring.threads.virtual.enabled=$virtuales > "/tmp/comparar-hilos-$virtuales.log" 2>&1 &
+  local pid=$!
+  until curl -s "http://localhost:$PUERTO/actuator/health" | grep -q UP; do sleep 1; done
+
+  curl -s -X POST "$URL/crear" -H "Content-Type: application/json" \
+    -d '{"codigo":"CARGA1","nombre":"Producto de carga","precio":1000,"cantidad":10}' > /dev/null
+
+  # Calentamiento del JIT y del pool de conexiones
+  hey -z 10s -c 50 "$URL/obtener/CARGA1" > /dev/null
+
+  echo "📊 Lectura por código ($CONCURRENCIA peticiones simultáneas, $DURACION)"
+  hey -z "$DURACION" -c "$CONCURRENCIA" "$URL/obtener/CARGA1" | grep -E "Requests/sec|Average|99%|\[2|\[5"
+  echo "📊 Listado paginado ($CONCURRENCIA peticiones simultáneas, $DURACION)"
+  hey -z "$DURACION" -c "$CONCURRENCIA" "$URL/listar-paginado?tamano=50" | grep -E "Requests/sec|Average|99%|\[2|\[5"
+
+  kill $pid
+  wait $pid 2> /dev/null
+}
+
+ejecutar false
+ejecutar true
+
+echo -e "\n✅ Comparación terminada (logs en /tmp/comparar-hilos-*.log)"
@@ -0,0 +1,72 @@
+#!/bin/bash
+
+# Mide el tiempo hasta la primera petición respondida (arranque de la JVM incluido) en cada modo de
+# arranque: jar normal, AOT, AOT + CDS y AOT + CDS + beans perezosos, que es lo que ejecuta la imagen.
+# Añade la mediana de cada modo al historial CSV para comparar entre versiones.
+# Requisitos: MariaDB de docker compose en localhost:3307.
+# Uso: ./medir_arranque.sh [repeticiones] [historial.csv]
+
+REPETICIONES=${1:-5}
+HISTORIAL=${2:-target/arranque/historial.csv}
+PUERTO=8091
+URL="http://localhost:$PUERTO/api/productos/listar-paginado?tamano=1"
+JAR=target/microservicio-spring-mariadb-0.0.1-SNAPSHOT.jar
+DIRECTORIO=target/arranque/app
+
+COMUNES=(--server.port=$PUERTO --spring.profiles.active=prod
+  --spring.datasource.url=jdbc:mariadb://localhost:3307/microspringdb)
+
+echo "🔨 Empaquetando el microservicio con el perfil arranque-rapido..."
+./mvnw -q -DskipTests -P arranque-rapido package || exit 1
+
+echo "📦 Levantando MariaDB..."
+docker compose up -d --wait mariadb || exit 1
+
+echo "🗜️  Extrayendo el jar y entrenando el archivo CDS (mismas opciones que el Dockerfile)..."
+rm -rf "$DIRECTORIO"
+java -Djarmode=tools -jar "$JAR" extract --destination "$DIRECTORIO" --application-filename app.jar || exit 1
+(cd "$DIRECTORIO" && java -XX:ArchiveClassesAtExit=app.jsa -Dspring.context.exit=onRefresh -jar app.jar \
+  --spring.profiles.active=prod --spring.flyway.enabled=false \
+  --spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false \
+  --spring.jpa.database-platform=org.hibernate.dialect.MariaDBDialect \
+  --productos.busqueda.habilitada=false > ../entrenamiento.log 2>&1) || exit 1
+
+# Milisegundos desde el lanzamiento de la JVM hasta la primera respuesta 2xx
+medir() {
+  local inicio fin pid
+  inicio=$(date +%s%N)
+  (cd "$DIRECTORIO" && exec java "$@" -jar app.jar "${COMUNES[@]}") > target/arranque/ultimo.log 2>&1 &
+  pid=$!
+  until curl -sf "$URL" > /dev/null; do
+    kill -0 $pid 2> /dev/null || { echo "❌ La aplicación terminó al arrancar (target/arranque/ultimo.log)" >&2; return 1; }
+    sleep 0.05
+  done
+  fin=$(date +%s%N)
+  kill $pid
+  wait $pid 2> /dev/null
+  echo $(( (fin - inicio) / 1000000 ))
+}
+
+ejecutar() {
+  local modo=$1
+  shift
+  local tiempos=()
+  for _ in $(seq "$REPETICIONES"); do
+    tiempos+=("$(medir "$@")") || exit 1
+  done
+  local mediana
+  mediana=$(printf '%s\n' "${tiempos[@]}" | sort -n | sed -n "$(( (REPETICIONES + 1) / 2 ))p")
+  echo "📊 $modo: mediana ${mediana} ms (${tiempos[*]})"
+  echo "$(date -u +%Y-%m-%dT%H:%M:%SZ),$VERSION,$modo,$REPETICIONES,$mediana" >> "$HISTORIAL"
+}
+
+VERSION=$(git describe --tags --always --dirty 2> /dev/null || echo desconocida)
+mkdir -p "$(dirname "$HISTORIAL")"
+[ -s "$HISTORIAL" ] || echo "fecha,version,modo,repeticiones,mediana_ms" > "$HISTORIAL"
+
+ejecutar jar
+ejecutar aot -Dspring.aot.enabled=true
+ejecutar aot-cds -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true
+ejecutar aot-cds-perezoso -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -Dspring.main.lazy-initialization=true
+
+echo -e "\n✅ Medición terminada (historial en $HISTORIAL)"
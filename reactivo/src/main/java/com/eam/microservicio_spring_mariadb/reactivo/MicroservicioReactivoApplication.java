@@ -0,0 +1,13 @@
+package com.eam.microservicio_spring_mariadb.reactivo;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class MicroservicioReactivoApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(MicroservicioReactivoApplication.class, args);
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.eam.microservicio_spring_mariadb.reactivo.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+// Las fechas se guardan como hora UTC sin zona, la misma convención que usa Hibernate con
+// hibernate.jdbc.time_zone=UTC en el servicio bloqueante (el driver R2DBC no convierte Instant)
+@Configuration
+public class R2dbcConfig {
+
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory) {
+        return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory),
+                List.of(InstantAUtc.INSTANCIA, UtcAInstant.INSTANCIA));
+    }
+
+    @WritingConverter
+    enum InstantAUtc implements Converter<Instant, LocalDateTime> {
+        INSTANCIA;
+
+        @Override
+        public LocalDateTime convert(Instant instante) {
+            return LocalDateTime.ofInstant(instante, ZoneOffset.UTC);
+        }
+    }
+
+    @ReadingConverter
+    enum UtcAInstant implements Converter<LocalDateTime, Instant> {
+        INSTANCIA;
+
+        @Override
+        public Instant convert(LocalDateTime fecha) {
+            return fecha.toInstant(ZoneOffset.UTC);
+        }
+    }
+}
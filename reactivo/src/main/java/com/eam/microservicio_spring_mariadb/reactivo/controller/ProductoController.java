@@ -0,0 +1,108 @@
+package com.eam.microservicio_spring_mariadb.reactivo.controller;
+
+import com.eam.microservicio_spring_mariadb.reactivo.entity.Producto;
+import com.eam.microservicio_spring_mariadb.reactivo.service.ProductoService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Mismo contrato /api/productos que el controlador bloqueante (rutas, cuerpos y códigos HTTP)
+@RestController
+@RequestMapping("/api/productos")
+public class ProductoController {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @PostMapping("/crear")
+    public Mono<ResponseEntity<Object>> crearProducto(@Valid @RequestBody Producto producto) {
+        return productoService.crearProducto(producto)
+                .map(productoCreado -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("mensaje", "Producto creado exitosamente.");
+                    response.put("producto", productoCreado);
+
+                    return ResponseEntity.ok().<Object>body(response);
+                })
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(e.getMessage())));
+    }
+
+    @GetMapping("/listar")
+    public Mono<ResponseEntity<Object>> listarProductos() {
+        return productoService.listarProductos()
+                .map(productos -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("mensaje", "Lista de productos obtenida correctamente.");
+                    response.put("productos", productos);
+
+                    return ResponseEntity.ok().<Object>body(response);
+                })
+                .onErrorResume(IllegalStateException.class,
+                        e -> Mono.just(ResponseEntity.status(404).body(e.getMessage())));
+    }
+
+    // Un objeto JSON por línea (NDJSON). WebFlux solo pide al servicio las filas que el cliente
+    // es capaz de recibir, así que un cliente lento frena la lectura en lugar de llenar la memoria
+    @GetMapping(value = "/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Producto> exportarProductos() {
+        return productoService.exportarProductos();
+    }
+
+    @GetMapping("/obtener/{codigo}")
+    public Mono<ResponseEntity<Object>> obtenerProducto(@PathVariable String codigo) {
+        return productoService.obtenerPorCodigo(codigo)
+                .map(producto -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("mensaje", "Producto obtenido exitosamente.");
+                    response.put("producto", producto);
+
+                    return ResponseEntity.ok().<Object>body(response);
+                })
+                .onErrorResume(NoSuchElementException.class,
+                        e -> Mono.just(ResponseEntity.status(404).body(e.getMessage())));
+    }
+
+    @PutMapping("/actualizar/{codigo}")
+    public Mono<ResponseEntity<Object>> actualizarProducto(@PathVariable String codigo, @Valid @RequestBody Producto producto) {
+        return productoService.actualizarProducto(codigo, producto)
+                .map(productoActualizado -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("mensaje", "Producto actualizado exitosamente.");
+                    response.put("producto", productoActualizado);
+
+                    return ResponseEntity.ok().<Object>body(response);
+                })
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(e.getMessage())))
+                .onErrorResume(NoSuchElementException.class,
+                        e -> Mono.just(ResponseEntity.status(404).body(e.getMessage())))
+                .onErrorResume(OptimisticLockingFailureException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
+                                .body("El producto fue modificado al mismo tiempo por otra petición, intente de nuevo")));
+    }
+
+    @DeleteMapping("/eliminar/{codigo}")
+    public Mono<ResponseEntity<Object>> eliminarProducto(@PathVariable String codigo) {
+        return productoService.eliminarProducto(codigo)
+                .then(Mono.fromSupplier(() -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("mensaje", "Producto eliminado exitosamente.");
+                    response.put("codigo", codigo);
+
+                    return ResponseEntity.ok().<Object>body(response);
+                }))
+                .onErrorResume(NoSuchElementException.class,
+                        e -> Mono.just(ResponseEntity.status(404).body(e.getMessage())));
+    }
+}
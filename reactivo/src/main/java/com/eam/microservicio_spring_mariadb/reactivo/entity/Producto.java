@@ -0,0 +1,59 @@
+package com.eam.microservicio_spring_mariadb.reactivo.entity;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+// Misma tabla y mismas reglas de validación que la entidad JPA del servicio bloqueante
+@Table("productos")
+@Getter
+@Setter
+public class Producto {
+
+    @Id
+    private Long id;
+
+    @NotBlank(message = "El código no puede estar vacío")
+    @Size(min = 3, max = 20, message = "El código debe tener entre 3 y 20 caracteres")
+    private String codigo;
+
+    @NotBlank(message = "El nombre no puede estar vacío")
+    @Size(min = 3, max = 50, message = "El nombre debe tener entre 3 y 50 caracteres")
+    private String nombre;
+
+    @NotNull(message = "El precio no puede ser nulo")
+    @Positive(message = "El precio debe ser mayor que cero")
+    private Double precio;
+
+    @NotNull(message = "La cantidad no puede ser nula")
+    @Positive(message = "La cantidad debe ser mayor que cero")
+    private Integer cantidad;
+
+    // Spring Data R2DBC la usa igual que @Version de JPA: la incrementa y la exige en el UPDATE
+    @Version
+    private Long version;
+
+    // Fecha de la última escritura (UTC); R2DBC no tiene @UpdateTimestamp, la fija el servicio
+    @Column("actualizado_en")
+    private Instant actualizadoEn;
+
+    public Producto() {
+    }
+
+    public Producto(Long id, String codigo, String nombre, Double precio, Integer cantidad) {
+        this.id = id;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.precio = precio;
+        this.cantidad = cantidad;
+    }
+}
@@ -0,0 +1,20 @@
+package com.eam.microservicio_spring_mariadb.reactivo.repository;
+
+import com.eam.microservicio_spring_mariadb.reactivo.entity.Producto;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ProductoRepository extends ReactiveCrudRepository<Producto, Long> {
+
+    // Verifica si ya existe un producto con un código específico
+    Mono<Boolean> existsByCodigo(String codigo);
+
+    // Busca un producto por su código único
+    Mono<Producto> findByCodigo(String codigo);
+
+    // Recorre el catálogo en orden de id; las filas se piden al driver según la demanda del suscriptor
+    Flux<Producto> findAllByOrderByIdAsc();
+}
@@ -0,0 +1,88 @@
+package com.eam.microservicio_spring_mariadb.reactivo.service;
+
+import com.eam.microservicio_spring_mariadb.reactivo.entity.Producto;
+import com.eam.microservicio_spring_mariadb.reactivo.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Mismas reglas que el ProductoService bloqueante, expresadas como Mono/Flux: ninguna operación
+// bloquea un hilo mientras espera a MariaDB
+@Service
+public class ProductoService {
+
+    // Filas que se piden al driver por cada tanda durante la exportación
+    private static final int FILAS_POR_DEMANDA = 256;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    // Crear producto (solo si el código no existe)
+    public Mono<Producto> crearProducto(Producto producto) {
+        if (producto == null) {
+            return Mono.error(new IllegalArgumentException("El producto no puede ser nulo"));
+        }
+
+        return productoRepository.existsByCodigo(producto.getCodigo())
+                .flatMap(existe -> {
+                    if (existe) {
+                        return Mono.error(new IllegalArgumentException("Ya existe un producto con el mismo código"));
+                    }
+                    // Sin id ni versión R2DBC lo trata como nuevo y hace INSERT
+                    producto.setId(null);
+                    producto.setVersion(null);
+                    producto.setActualizadoEn(Instant.now());
+                    return productoRepository.save(producto);
+                })
+                // Dos altas simultáneas pueden pasar la comprobación; la restricción única decide
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new IllegalArgumentException("Ya existe un producto con el mismo código"));
+    }
+
+    // Obtener todos los productos
+    public Mono<List<Producto>> listarProductos() {
+        return productoRepository.findAll()
+                .collectList()
+                .flatMap(productos -> productos.isEmpty()
+                        ? Mono.error(new IllegalStateException("No hay productos registrados en la base de datos"))
+                        : Mono.just(productos));
+    }
+
+    // Exportar todo el catálogo como flujo: solo se leen filas a medida que el cliente las consume
+    public Flux<Producto> exportarProductos() {
+        return productoRepository.findAllByOrderByIdAsc().limitRate(FILAS_POR_DEMANDA);
+    }
+
+    // Obtener un producto por su código (con validación si no existe)
+    public Mono<Producto> obtenerPorCodigo(String codigo) {
+        return productoRepository.findByCodigo(codigo)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("No se encontró el producto con el código proporcionado")));
+    }
+
+    // Actualizar producto por código (sin permitir cambiar el código)
+    public Mono<Producto> actualizarProducto(String codigo, Producto nuevoProducto) {
+        if (!codigo.equals(nuevoProducto.getCodigo())) {
+            return Mono.error(new IllegalArgumentException("No se permite modificar el código del producto"));
+        }
+
+        return obtenerPorCodigo(codigo)
+                .flatMap(producto -> {
+                    producto.setNombre(nuevoProducto.getNombre());
+                    producto.setPrecio(nuevoProducto.getPrecio());
+                    producto.setCantidad(nuevoProducto.getCantidad());
+                    producto.setActualizadoEn(Instant.now());
+                    return productoRepository.save(producto);
+                });
+    }
+
+    // Eliminar producto por código
+    public Mono<Void> eliminarProducto(String codigo) {
+        return obtenerPorCodigo(codigo).flatMap(productoRepository::delete);
+    }
+}
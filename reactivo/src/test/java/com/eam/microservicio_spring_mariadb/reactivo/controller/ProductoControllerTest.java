@@ -0,0 +1,133 @@
+package com.eam.microservicio_spring_mariadb.reactivo.controller;
+
+import com.eam.microservicio_spring_mariadb.reactivo.entity.Producto;
+import com.eam.microservicio_spring_mariadb.reactivo.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Contrato HTTP completo contra H2 en memoria (R2DBC), sin MariaDB ni contenedores
+@SpringBootTest
+@AutoConfigureWebTestClient
+class ProductoControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @BeforeEach
+    void cleanDB() {
+        productoRepository.deleteAll().block();
+    }
+
+    private WebTestClient.ResponseSpec crear(Producto producto) {
+        return webTestClient.post().uri("/api/productos/crear")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(producto)
+                .exchange();
+    }
+
+    @Test
+    void crearProducto_DeberiaRetornarOkYRechazarDuplicados() {
+        crear(new Producto(null, "R001", "Camisa", 50000.0, 10))
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.mensaje").isEqualTo("Producto creado exitosamente.")
+                .jsonPath("$.producto.id").isNotEmpty()
+                .jsonPath("$.producto.version").isEqualTo(0);
+
+        crear(new Producto(null, "R001", "Camisa copia", 40000.0, 3))
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Ya existe un producto con el mismo código");
+    }
+
+    @Test
+    void crearProducto_DeberiaValidarElCuerpo() {
+        crear(new Producto(null, "R1", "", -1.0, 0))
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void listarProductos_DeberiaRetornar404SiNoHayProductos() {
+        webTestClient.get().uri("/api/productos/listar").exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class).isEqualTo("No hay productos registrados en la base de datos");
+    }
+
+    @Test
+    void obtenerYActualizarProducto_DeberianRespetarLasReglasDelServicio() {
+        crear(new Producto(null, "R002", "Pantalón", 80000.0, 5)).expectStatus().isOk();
+
+        webTestClient.get().uri("/api/productos/obtener/R002").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.producto.nombre").isEqualTo("Pantalón");
+
+        webTestClient.put().uri("/api/productos/actualizar/R002")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Producto(null, "R003", "Pantalón", 80000.0, 5))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("No se permite modificar el código del producto");
+
+        webTestClient.put().uri("/api/productos/actualizar/R002")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Producto(null, "R002", "Pantalón largo", 85000.0, 4))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.producto.nombre").isEqualTo("Pantalón largo")
+                .jsonPath("$.producto.version").isEqualTo(1);
+
+        Producto guardado = productoRepository.findByCodigo("R002").block();
+        assertNotNull(guardado.getActualizadoEn());
+        assertTrue(Duration.between(guardado.getActualizadoEn(), Instant.now()).abs().toMinutes() < 1);
+
+        webTestClient.get().uri("/api/productos/obtener/R999").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void exportarProductos_DeberiaEmitirUnaLineaPorProducto() {
+        for (int i = 1; i <= 5; i++) {
+            crear(new Producto(null, "EXP" + i, "Producto " + i, 1000.0, i)).expectStatus().isOk();
+        }
+
+        List<Producto> exportados = webTestClient.get().uri("/api/productos/exportar")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Producto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(exportados);
+        assertEquals(List.of("EXP1", "EXP2", "EXP3", "EXP4", "EXP5"),
+                exportados.stream().map(Producto::getCodigo).toList());
+    }
+
+    @Test
+    void eliminarProducto_DeberiaRetornarOkY404DespuesDeBorrar() {
+        crear(new Producto(null, "R004", "Zapato", 120000.0, 2)).expectStatus().isOk();
+
+        webTestClient.delete().uri("/api/productos/eliminar/R004").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.codigo").isEqualTo("R004");
+
+        webTestClient.delete().uri("/api/productos/eliminar/R004").exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,126 @@
+package com.eam.microservicio_spring_mariadb.reactivo.service;
+
+import com.eam.microservicio_spring_mariadb.reactivo.entity.Producto;
+import com.eam.microservicio_spring_mariadb.reactivo.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductoServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private ProductoService productoService;
+
+    @Test
+    void crearProducto_DeberiaGuardarSiElCodigoNoExiste() {
+        Producto producto = new Producto(null, "P001", "Camisa", 50000.0, 10);
+        when(productoRepository.existsByCodigo("P001")).thenReturn(Mono.just(false));
+        when(productoRepository.save(producto)).thenReturn(Mono.just(producto));
+
+        StepVerifier.create(productoService.crearProducto(producto))
+                .assertNext(creado -> assertNotNull(creado.getActualizadoEn()))
+                .verifyComplete();
+    }
+
+    @Test
+    void crearProducto_DeberiaFallarSiElCodigoExiste() {
+        when(productoRepository.existsByCodigo("P001")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(productoService.crearProducto(new Producto(null, "P001", "Camisa", 50000.0, 10)))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Ya existe un producto con el mismo código"))
+                .verify();
+        verify(productoRepository, never()).save(any());
+    }
+
+    @Test
+    void crearProducto_DeberiaTraducirLaViolacionDeUnicidadConcurrente() {
+        Producto producto = new Producto(null, "P001", "Camisa", 50000.0, 10);
+        when(productoRepository.existsByCodigo("P001")).thenReturn(Mono.just(false));
+        when(productoRepository.save(producto)).thenReturn(Mono.error(new DuplicateKeyException("Duplicate entry")));
+
+        StepVerifier.create(productoService.crearProducto(producto))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void listarProductos_DeberiaFallarSiNoHayProductos() {
+        when(productoRepository.findAll()).thenReturn(Flux.empty());
+
+        StepVerifier.create(productoService.listarProductos())
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("No hay productos registrados en la base de datos"))
+                .verify();
+    }
+
+    @Test
+    void exportarProductos_DeberiaPedirFilasSegunLaDemanda() {
+        Flux<Producto> catalogo = Flux.range(1, 1000).map(i -> new Producto((long) i, "P" + i, "Producto", 1.0, 1));
+        when(productoRepository.findAllByOrderByIdAsc()).thenReturn(catalogo);
+
+        StepVerifier.create(productoService.exportarProductos(), 10)
+                .expectNextCount(10)
+                .thenRequest(990)
+                .expectNextCount(990)
+                .verifyComplete();
+    }
+
+    @Test
+    void obtenerPorCodigo_DeberiaFallarSiNoExiste() {
+        when(productoRepository.findByCodigo("P999")).thenReturn(Mono.empty());
+
+        StepVerifier.create(productoService.obtenerPorCodigo("P999"))
+                .expectError(NoSuchElementException.class)
+                .verify();
+    }
+
+    @Test
+    void actualizarProducto_NoDeberiaPermitirCambiarElCodigo() {
+        StepVerifier.create(productoService.actualizarProducto("P001", new Producto(null, "P002", "Camisa", 50000.0, 10)))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("No se permite modificar el código del producto"))
+                .verify();
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    void actualizarProducto_DeberiaCopiarLosCamposEditables() {
+        Producto existente = new Producto(1L, "P001", "Camisa", 50000.0, 10);
+        when(productoRepository.findByCodigo("P001")).thenReturn(Mono.just(existente));
+        when(productoRepository.save(existente)).thenReturn(Mono.just(existente));
+
+        StepVerifier.create(productoService.actualizarProducto("P001", new Producto(null, "P001", "Camisa azul", 60000.0, 5)))
+                .assertNext(actualizado -> {
+                    assertEquals("Camisa azul", actualizado.getNombre());
+                    assertEquals(60000.0, actualizado.getPrecio());
+                    assertEquals(5, actualizado.getCantidad());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void eliminarProducto_DeberiaFallarSiNoExiste() {
+        when(productoRepository.findByCodigo("P999")).thenReturn(Mono.empty());
+
+        StepVerifier.create(productoService.eliminarProducto("P999"))
+                .expectError(NoSuchElementException.class)
+                .verify();
+        verify(productoRepository, never()).delete(any());
+    }
+}
@@ -0,0 +1,13 @@
+-- Solo para las pruebas con H2. En MariaDB la tabla la crean y evolucionan las migraciones
+-- Flyway del servicio bloqueante (src/main/resources/db/migration/mariadb); mismas columnas que V1
+CREATE TABLE IF NOT EXISTS productos (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    codigo         VARCHAR(20)  NOT NULL,
+    nombre         VARCHAR(50)  NOT NULL,
+    precio         DOUBLE       NOT NULL,
+    cantidad       INT          NOT NULL,
+    version        BIGINT       NOT NULL,
+    actualizado_en DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_productos_codigo UNIQUE (codigo)
+);
@@ -0,0 +1,430 @@
+package com.eam.microservicio_spring_mariadb.carga;
+
+import com.eam.microservicio_spring_mariadb.MicroservicioSpringMariadbApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Generador de carga de lazo abierto: las peticiones salen a una tasa fija, sin esperar a que
+// terminen las anteriores, y la latencia se mide desde el instante en que *debía* salir cada una.
+// Así un servidor lento no frena al generador ni esconde su cola (omisión coordinada).
+//
+// Sin carga.url la aplicación se lanza como proceso aparte (java -jar del jar empaquetado) contra
+// la MariaDB de docker compose, para que no comparta CPU, heap ni GC con el generador. El modo
+// carga.modo=embebido la arranca en esta misma JVM sobre H2: solo sirve como prueba de humo.
+public final class GeneradorCarga {
+
+    private static final int PRODUCTOS_SEMILLA = 2_000;
+
+    private static final int TAMANO_LOTE_SEMILLA = 500;
+
+    // Latencia máxima registrable; lo que la supere se anota con este valor
+    private static final long LATENCIA_MAXIMA_NS = TimeUnit.SECONDS.toNanos(60);
+
+    private final HttpClient cliente;
+
+    private final String baseUrl;
+
+    // Prefijo propio de la ejecución: evita choques con datos previos en una base compartida
+    private final String prefijo = "L" + Long.toString(System.currentTimeMillis() % 1_679_616, 36);
+
+    private final Queue<String> creados = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private final LongAdder enVuelo = new LongAdder();
+
+    private GeneradorCarga(String baseUrl) {
+        this.baseUrl = baseUrl;
+        ExecutorService hilos = Executors.newFixedThreadPool(4, tarea -> {
+            Thread hilo = new Thread(tarea, "carga-http");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(hilos)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tasa = Integer.getInteger("carga.tasa", 200);
+        int duracion = Integer.getInteger("carga.duracion", 60);
+        int calentamiento = Integer.getInteger("carga.calentamiento", 15);
+        Mezcla mezcla = Mezcla.de(System.getProperty("carga.mezcla", "obtener=60,listar=10,crear=10,actualizar=15,eliminar=5"));
+        String url = System.getProperty("carga.url", "");
+        long sloP99Ms = Long.getLong("carga.slo-p99-ms", 0L);
+        Path salida = Path.of(System.getProperty("carga.salida", "target/carga"));
+
+        ConfigurableApplicationContext contexto = null;
+        Process aplicacion = null;
+        if (url.isBlank() && System.getProperty("carga.modo", "proceso").equals("embebido")) {
+            System.out.println("Aplicación embebida sobre H2 en la JVM del generador: prueba de humo, las cifras no son representativas");
+            contexto = iniciarAplicacion();
+            url = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+        } else if (url.isBlank()) {
+            int puerto = puertoLibre();
+            aplicacion = lanzarAplicacion(puerto, salida);
+            url = "http://localhost:" + puerto;
+            esperarArranque(aplicacion, url);
+        }
+
+        int codigoSalida;
+        try {
+            GeneradorCarga generador = new GeneradorCarga(url + "/api/productos");
+            generador.sembrar();
+
+            System.out.printf(Locale.ROOT, "Calentando %d s a %d peticiones/s contra %s%n", calentamiento, tasa, url);
+            generador.ejecutar(tasa, calentamiento, mezcla);
+            System.out.printf(Locale.ROOT, "Midiendo %d s a %d peticiones/s (%s)%n", duracion, tasa, mezcla);
+            Map<Operacion, Resultado> medidos = generador.ejecutar(tasa, duracion, mezcla);
+
+            codigoSalida = informar(medidos, tasa, duracion, sloP99Ms, salida);
+        } finally {
+            if (contexto != null) {
+                contexto.close();
+            }
+            if (aplicacion != null) {
+                detener(aplicacion);
+            }
+        }
+        System.exit(codigoSalida);
+    }
+
+    // Lanza el jar empaquetado en otra JVM; su salida queda en aplicacion.log junto a los resultados
+    private static Process lanzarAplicacion(int puerto, Path salida) throws IOException {
+        Path jar = Path.of(System.getProperty("carga.jar", "target/microservicio-spring-mariadb-0.0.1-SNAPSHOT.jar"));
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No existe " + jar.toAbsolutePath() + "; empaqueta antes con mvn package");
+        }
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String opcion : System.getProperty("carga.jvm", "").trim().split("\\s+")) {
+            if (!opcion.isEmpty()) {
+                comando.add(opcion);
+            }
+        }
+        comando.addAll(List.of("-jar", jar.toString(),
+                "--server.port=" + puerto,
+                "--spring.datasource.url=" + System.getProperty("carga.bd.url", "jdbc:mariadb://localhost:3307/microspringdb"),
+                "--spring.datasource.username=" + System.getProperty("carga.bd.usuario", "appuser"),
+                "--spring.datasource.password=" + System.getProperty("carga.bd.clave", "apppass"),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+
+        Files.createDirectories(salida);
+        Path registro = salida.resolve("aplicacion.log");
+        System.out.println("Lanzando la aplicación en otro proceso (registro en " + registro.toAbsolutePath() + ")");
+        return new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(registro.toFile())
+                .start();
+    }
+
+    private static void esperarArranque(Process aplicacion, String url) throws IOException, InterruptedException {
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest sonda = HttpRequest.newBuilder(URI.create(url + "/api/productos/listar-paginado?tamano=1"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long limite = System.nanoTime() + TimeUnit.MINUTES.toNanos(3);
+        while (System.nanoTime() < limite) {
+            if (!aplicacion.isAlive()) {
+                throw new IllegalStateException("La aplicación terminó al arrancar con código " + aplicacion.exitValue());
+            }
+            try {
+                if (cliente.send(sonda, HttpResponse.BodyHandlers.discarding()).statusCode() < 500) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Aún no escucha en el puerto
+            }
+            Thread.sleep(200);
+        }
+        detener(aplicacion);
+        throw new IllegalStateException("La aplicación no respondió en " + url + " tras 3 minutos");
+    }
+
+    private static void detener(Process aplicacion) throws InterruptedException {
+        aplicacion.destroy();
+        if (!aplicacion.waitFor(30, TimeUnit.SECONDS)) {
+            aplicacion.destroyForcibly();
+        }
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // Arranca la aplicación real en un puerto libre sobre H2 en modo MariaDB, dentro de esta JVM
+    private static ConfigurableApplicationContext iniciarAplicacion() {
+        // Sin el reinicio de devtools, que relanzaría main en otro hilo y cargador de clases
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(MicroservicioSpringMariadbApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:carga;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    }
+
+    private void sembrar() throws IOException, InterruptedException {
+        for (int desde = 0; desde < PRODUCTOS_SEMILLA; desde += TAMANO_LOTE_SEMILLA) {
+            StringBuilder lote = new StringBuilder("[");
+            for (int i = desde; i < desde + TAMANO_LOTE_SEMILLA; i++) {
+                lote.append(i == desde ? "" : ",").append(cuerpo(codigoSemilla(i), 100));
+            }
+            HttpResponse<String> respuesta = cliente.send(peticion("/crear-lote").POST(json(lote.append("]").toString())).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() != 200) {
+                throw new IllegalStateException("No se pudo sembrar el catálogo: " + respuesta.statusCode() + " " + respuesta.body());
+            }
+        }
+    }
+
+    private Map<Operacion, Resultado> ejecutar(int tasa, int segundos, Mezcla mezcla) throws InterruptedException {
+        Map<Operacion, Resultado> fase = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            fase.put(operacion, new Resultado());
+        }
+
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / tasa;
+        long inicio = System.nanoTime();
+        long fin = inicio + TimeUnit.SECONDS.toNanos(segundos);
+
+        for (long i = 0; ; i++) {
+            long previsto = inicio + i * intervalo;
+            if (previsto >= fin) {
+                break;
+            }
+            esperarHasta(previsto);
+            lanzar(mezcla.elegir(), previsto, fase);
+        }
+
+        // Las que siguen en vuelo cuentan con su latencia real aunque terminen después del plazo
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (enVuelo.sum() > 0 && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        return fase;
+    }
+
+    private void lanzar(Operacion operacion, long previsto, Map<Operacion, Resultado> fase) {
+        String codigo = null;
+        HttpRequest.Builder peticion;
+        switch (operacion) {
+            case LISTAR -> peticion = peticion("/listar-paginado?tamano=50").GET();
+            case CREAR -> {
+                codigo = prefijo + "N" + secuencia.incrementAndGet();
+                peticion = peticion("/crear").POST(json(cuerpo(codigo, 10)));
+            }
+            case ACTUALIZAR -> {
+                String actualizado = codigoAleatorio();
+                peticion = peticion("/actualizar/" + actualizado)
+                        .PUT(json(cuerpo(actualizado, 1 + ThreadLocalRandom.current().nextInt(500))));
+            }
+            case ELIMINAR -> {
+                codigo = creados.poll();
+                if (codigo == null) {
+                    // Aún no hay altas propias que borrar: se mide una lectura en su lugar
+                    lanzar(Operacion.OBTENER, previsto, fase);
+                    return;
+                }
+                peticion = peticion("/eliminar/" + codigo).DELETE();
+            }
+            default -> peticion = peticion("/obtener/" + codigoAleatorio()).GET();
+        }
+
+        String creado = operacion == Operacion.CREAR ? codigo : null;
+        Resultado resultado = fase.get(operacion);
+        enVuelo.increment();
+        cliente.sendAsync(peticion.build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((respuesta, error) -> {
+                    long latencia = Math.min(System.nanoTime() - previsto, LATENCIA_MAXIMA_NS);
+                    resultado.latencias.recordValue(latencia);
+                    if (error != null || respuesta.statusCode() >= 400) {
+                        resultado.errores.increment();
+                    } else if (creado != null) {
+                        creados.add(creado);
+                    }
+                    enVuelo.decrement();
+                });
+    }
+
+    private static int informar(Map<Operacion, Resultado> medidos, int tasa, int duracion, long sloP99Ms, Path salida)
+            throws IOException {
+        Files.createDirectories(salida);
+        List<String> filasJson = new ArrayList<>();
+        long total = 0;
+        long errores = 0;
+        int codigoSalida = 0;
+
+        PrintStream consola = System.out;
+        consola.printf(Locale.ROOT, "%n%-11s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operación", "peticiones", "errores", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Operacion, Resultado> entrada : medidos.entrySet()) {
+            Histogram histograma = entrada.getValue().latencias;
+            long peticiones = histograma.getTotalCount();
+            long fallidas = entrada.getValue().errores.sum();
+            if (peticiones == 0) {
+                continue;
+            }
+            total += peticiones;
+            errores += fallidas;
+
+            String nombre = entrada.getKey().name().toLowerCase(Locale.ROOT);
+            double p99 = ms(histograma.getValueAtPercentile(99));
+            consola.printf(Locale.ROOT, "%-11s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    nombre, peticiones, fallidas, (double) peticiones / duracion,
+                    ms(histograma.getValueAtPercentile(50)), ms(histograma.getValueAtPercentile(90)), p99,
+                    ms(histograma.getValueAtPercentile(99.9)), ms(histograma.getMaxValue()));
+
+            filasJson.add(String.format(Locale.ROOT,
+                    "    \"%s\": {\"peticiones\": %d, \"errores\": %d, \"opsPorSegundo\": %.2f, "
+                            + "\"p50Ms\": %.3f, \"p90Ms\": %.3f, \"p99Ms\": %.3f, \"p999Ms\": %.3f, \"maxMs\": %.3f}",
+                    nombre, peticiones, fallidas, (double) peticiones / duracion,
+                    ms(histograma.getValueAtPercentile(50)), ms(histograma.getValueAtPercentile(90)), p99,
+                    ms(histograma.getValueAtPercentile(99.9)), ms(histograma.getMaxValue())));
+
+            // Distribución completa, legible con el graficador de HdrHistogram
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(salida.resolve(nombre + ".hgrm")), true,
+                    StandardCharsets.UTF_8)) {
+                histograma.outputPercentileDistribution(hgrm, 1_000_000.0);
+            }
+
+            if (sloP99Ms > 0 && p99 > sloP99Ms) {
+                consola.printf(Locale.ROOT, "SLO incumplido: p99 de %s = %.2f ms > %d ms%n", nombre, p99, sloP99Ms);
+                codigoSalida = 1;
+            }
+        }
+        consola.printf(Locale.ROOT, "%nTotal: %d peticiones (%.1f/s de %d/s objetivo), %d errores%n",
+                total, (double) total / duracion, tasa, errores);
+
+        String json = String.format(Locale.ROOT, "{%n  \"tasaObjetivo\": %d,%n  \"duracionSegundos\": %d,%n"
+                        + "  \"peticiones\": %d,%n  \"errores\": %d,%n  \"operaciones\": {%n%s%n  }%n}%n",
+                tasa, duracion, total, errores, String.join(",\n", filasJson));
+        Files.writeString(salida.resolve("resultado.json"), json);
+        consola.println("Resultados en " + salida.toAbsolutePath());
+        return codigoSalida;
+    }
+
+    private HttpRequest.Builder peticion(String ruta) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + ruta))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30));
+    }
+
+    private static HttpRequest.BodyPublisher json(String cuerpo) {
+        return HttpRequest.BodyPublishers.ofString(cuerpo);
+    }
+
+    private static String cuerpo(String codigo, int cantidad) {
+        return String.format(Locale.ROOT,
+                "{\"codigo\":\"%s\",\"nombre\":\"Producto de carga\",\"precio\":1500.0,\"cantidad\":%d}", codigo, cantidad);
+    }
+
+    private String codigoSemilla(int indice) {
+        return prefijo + "S" + indice;
+    }
+
+    private String codigoAleatorio() {
+        return codigoSemilla(ThreadLocalRandom.current().nextInt(PRODUCTOS_SEMILLA));
+    }
+
+    private static void esperarHasta(long instante) {
+        long restante;
+        while ((restante = instante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private enum Operacion {
+        OBTENER, LISTAR, CREAR, ACTUALIZAR, ELIMINAR
+    }
+
+    private static final class Resultado {
+
+        // Hasta 60 s con 3 cifras significativas; admite registros desde varios hilos
+        private final Histogram latencias = new ConcurrentHistogram(LATENCIA_MAXIMA_NS, 3);
+
+        private final LongAdder errores = new LongAdder();
+    }
+
+    // Proporción de cada operación, p. ej. "obtener=60,listar=10,crear=10,actualizar=15,eliminar=5"
+    private record Mezcla(Operacion[] operaciones, int[] acumulados, String descripcion) {
+
+        static Mezcla de(String texto) {
+            List<Operacion> operaciones = new ArrayList<>();
+            List<Integer> acumulados = new ArrayList<>();
+            int total = 0;
+            for (String parte : texto.split(",")) {
+                String[] claveValor = parte.trim().split("=");
+                int peso = Integer.parseInt(claveValor[1].trim());
+                if (peso <= 0) {
+                    continue;
+                }
+                total += peso;
+                operaciones.add(Operacion.valueOf(claveValor[0].trim().toUpperCase(Locale.ROOT)));
+                acumulados.add(total);
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("La mezcla de carga no tiene ninguna operación: " + texto);
+            }
+            return new Mezcla(operaciones.toArray(Operacion[]::new),
+                    acumulados.stream().mapToInt(Integer::intValue).toArray(), texto);
+        }
+
+        Operacion elegir() {
+            int sorteo = ThreadLocalRandom.current().nextInt(acumulados[acumulados.length - 1]);
+            for (int i = 0; i < acumulados.length; i++) {
+                if (sorteo < acumulados[i]) {
+                    return operaciones[i];
+                }
+            }
+            return operaciones[operaciones.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            return descripcion;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.eam.microservicio_spring_mariadb.benchmark;
+
+import com.eam.microservicio_spring_mariadb.MicroservicioSpringMariadbApplication;
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Arranca la aplicación completa (sin servidor web) sobre H2 en memoria en modo MariaDB y
+// siembra el catálogo. Las cifras absolutas no son las de MariaDB: sirven para comparar versiones.
+final class AplicacionEmbebida {
+
+    static final int PRODUCTOS = 10_000;
+
+    private AplicacionEmbebida() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String... propiedadesExtra) {
+        List<String> propiedades = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        propiedades.addAll(List.of(propiedadesExtra));
+
+        // Como argumentos de línea de comandos para que prevalezcan sobre application.properties
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(MicroservicioSpringMariadbApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(propiedades.stream().map(propiedad -> "--" + propiedad).toArray(String[]::new));
+
+        List<Producto> catalogo = new ArrayList<>(PRODUCTOS);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            catalogo.add(new Producto(null, codigo(i), "Producto " + i, 1000.0 + i, 100));
+        }
+        contexto.getBean(ProductoRepository.class).insertarLote(catalogo);
+        return contexto;
+    }
+
+    static String codigo(int indice) {
+        return String.format("B%06d", indice);
+    }
+}
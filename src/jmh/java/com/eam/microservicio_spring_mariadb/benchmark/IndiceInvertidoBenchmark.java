@@ -0,0 +1,63 @@
+package com.eam.microservicio_spring_mariadb.benchmark;
+
+import com.eam.microservicio_spring_mariadb.busqueda.IndiceInvertido;
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Búsquedas top-10 sobre el índice en memoria, sin Spring ni base de datos
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndiceInvertidoBenchmark {
+
+    private static final String[] PRENDAS = {"Camisa", "Camiseta", "Pantalón", "Chaqueta", "Zapato", "Bota",
+            "Vestido", "Falda", "Abrigo", "Bufanda", "Gorra", "Calcetín", "Sudadera", "Blusa", "Cinturón"};
+
+    private static final String[] ATRIBUTOS = {"azul", "roja", "negra", "blanca", "verde", "algodón", "lana",
+            "cuero", "deportiva", "clásica", "slim", "oversize", "infantil", "térmica", "impermeable"};
+
+    private static final String[] CONSULTAS = {"c", "cam", "camis", "camiseta azul", "pant neg", "bot cuer",
+            "sudadera termica", "P00012", "abrigo lana infantil", "zap dep"};
+
+    @Param({"100000"})
+    private int productos;
+
+    private IndiceInvertido indice;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        indice = new IndiceInvertido(10);
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        for (int i = 0; i < productos; i++) {
+            String nombre = PRENDAS[aleatorio.nextInt(PRENDAS.length)] + " "
+                    + ATRIBUTOS[aleatorio.nextInt(ATRIBUTOS.length)] + " "
+                    + ATRIBUTOS[aleatorio.nextInt(ATRIBUTOS.length)];
+            indice.actualizar(String.format("P%07d", i), nombre);
+        }
+    }
+
+    @Benchmark
+    public List<Sugerencia> buscar() {
+        return indice.buscar(CONSULTAS[ThreadLocalRandom.current().nextInt(CONSULTAS.length)], 10);
+    }
+
+    // Prefijo largo y selectivo: la lista más corta acota la intersección
+    @Benchmark
+    public List<Sugerencia> buscarSelectiva() {
+        return indice.buscar("abrigo lana infantil", 10);
+    }
+
+    @Benchmark
+    public void actualizar() {
+        int i = ThreadLocalRandom.current().nextInt(productos);
+        indice.actualizar(String.format("P%07d", i), PRENDAS[i % PRENDAS.length] + " " + ATRIBUTOS[i % ATRIBUTOS.length]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.eam.microservicio_spring_mariadb.benchmark;
+
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Búsquedas por código directamente sobre el repositorio, sin caché ni servicio
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductoRepositoryBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+
+    private ProductoRepository productoRepository;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = AplicacionEmbebida.iniciar();
+        productoRepository = contexto.getBean(ProductoRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Optional<Producto> findByCodigo() {
+        return productoRepository.findByCodigo(codigoAleatorio());
+    }
+
+    @Benchmark
+    public boolean existsByCodigo() {
+        return productoRepository.existsByCodigo(codigoAleatorio());
+    }
+
+    @Benchmark
+    public Optional<Integer> findCantidadByCodigo() {
+        return productoRepository.findCantidadByCodigo(codigoAleatorio());
+    }
+
+    // Código que no existe: recorre el índice único sin devolver fila
+    @Benchmark
+    public Optional<Producto> findByCodigoInexistente() {
+        return productoRepository.findByCodigo("X" + ThreadLocalRandom.current().nextInt(AplicacionEmbebida.PRODUCTOS));
+    }
+
+    private static String codigoAleatorio() {
+        return AplicacionEmbebida.codigo(ThreadLocalRandom.current().nextInt(AplicacionEmbebida.PRODUCTOS));
+    }
+}
@@ -0,0 +1,76 @@
+package com.eam.microservicio_spring_mariadb.benchmark;
+
+import com.eam.microservicio_spring_mariadb.dto.PaginaProductos;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.service.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Operaciones de ProductoService de extremo a extremo (transacción, caché, invalidación y SQL)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductoServiceBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheHabilitada;
+
+    private ConfigurableApplicationContext contexto;
+
+    private ProductoService productoService;
+
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = AplicacionEmbebida.iniciar("productos.cache.habilitada=" + cacheHabilitada);
+        productoService = contexto.getBean(ProductoService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public ProductoVista obtenerPorCodigo() {
+        return productoService.obtenerPorCodigo(codigoAleatorio());
+    }
+
+    @Benchmark
+    public PaginaProductos listarPagina() {
+        return productoService.listarPagina(null, 50);
+    }
+
+    @Benchmark
+    public int ajustarStock() {
+        return productoService.ajustarStock(codigoAleatorio(), 1);
+    }
+
+    @Benchmark
+    public Producto actualizarProducto() {
+        String codigo = codigoAleatorio();
+        return productoService.actualizarProducto(codigo, new Producto(null, codigo, "Producto actualizado", 2000.0, 50));
+    }
+
+    // Alta y baja en la misma invocación para que el catálogo no crezca durante la medición
+    @Benchmark
+    public Producto crearYEliminar() {
+        String codigo = "N" + secuencia.incrementAndGet();
+        Producto creado = productoService.crearProducto(new Producto(null, codigo, "Producto nuevo", 1500.0, 10));
+        productoService.eliminarProducto(codigo);
+        return creado;
+    }
+
+    private static String codigoAleatorio() {
+        return AplicacionEmbebida.codigo(ThreadLocalRandom.current().nextInt(AplicacionEmbebida.PRODUCTOS));
+    }
+}
@@ -0,0 +1,66 @@
+package com.eam.microservicio_spring_mariadb.benchmark;
+
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Serialización con Jackson de los sobres HashMap<String, Object> que arma ProductoController,
+// con las vistas ProductoVista que devuelven las lecturas
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int productos;
+
+    // Misma configuración base que el ObjectMapper que crea Spring Boot
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Map<String, Object> sobre;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Instant actualizadoEn = Instant.parse("2025-01-01T00:00:00Z");
+        List<ProductoVista> lista = new ArrayList<>(productos);
+        for (int i = 0; i < productos; i++) {
+            lista.add(new ProductoVista((long) i, AplicacionEmbebida.codigo(i), "Producto " + i, 1000.0 + i, 100,
+                    3L, actualizadoEn));
+        }
+
+        sobre = new HashMap<>();
+        if (productos == 1) {
+            sobre.put("mensaje", "Producto obtenido exitosamente.");
+            sobre.put("producto", lista.get(0));
+        } else {
+            sobre.put("mensaje", "Lista de productos obtenida correctamente.");
+            sobre.put("productos", lista);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarSobre() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(sobre);
+    }
+
+    // Incluye el coste de armar el HashMap en cada respuesta, como hace el controlador
+    @Benchmark
+    public byte[] armarYSerializarSobre() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("mensaje", sobre.get("mensaje"));
+        response.put(productos == 1 ? "producto" : "productos", sobre.get(productos == 1 ? "producto" : "productos"));
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
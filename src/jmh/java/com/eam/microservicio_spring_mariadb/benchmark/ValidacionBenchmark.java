@@ -0,0 +1,37 @@
+package com.eam.microservicio_spring_mariadb.benchmark;
+
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Coste de Bean Validation sobre Producto (lo paga @Valid en cada alta/actualización y cada ítem de un lote)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidacionBenchmark {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final Producto valido = new Producto(null, "P001", "Camisa", 50000.0, 10);
+
+    // Viola las cuatro restricciones de campo: se construyen y formatean cuatro mensajes
+    private final Producto invalido = new Producto(null, "P", "", -1.0, 0);
+
+    @Benchmark
+    public Set<ConstraintViolation<Producto>> validarProductoValido() {
+        return validator.validate(valido);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Producto>> validarProductoInvalido() {
+        return validator.validate(invalido);
+    }
+}
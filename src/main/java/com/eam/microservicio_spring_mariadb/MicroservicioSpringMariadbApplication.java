@@ -2,8 +2,10 @@ package com.eam.microservicio_spring_mariadb;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class MicroservicioSpringMariadbApplication {
 
 	public static void main(String[] args) {
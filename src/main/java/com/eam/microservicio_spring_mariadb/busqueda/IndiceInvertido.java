@@ -0,0 +1,437 @@
+package com.eam.microservicio_spring_mariadb.busqueda;
+
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice invertido en memoria de nombre y código para búsqueda mientras se escribe (typeahead).
+// Cada palabra se indexa por sus prefijos (edge n-grams) de 1 a longitudPrefijo caracteres, sin
+// tildes y en minúsculas. Cada prefijo apunta a una lista ordenada de documentos en un int[], sin
+// objetos por entrada: un producto ocupa en las listas un int por prefijo de cada palabra.
+// Las búsquedas toman el candado de lectura y las altas, cambios y bajas el de escritura.
+public class IndiceInvertido {
+
+    private static final Pattern SEPARADOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private static final String[] SIN_PALABRAS = new String[0];
+
+    private final int longitudPrefijo;
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> documentoPorCodigo = new HashMap<>();
+
+    private final Map<String, Postings> postingsPorPrefijo = new HashMap<>();
+
+    // Datos de cada documento por su número; los huecos de las bajas se reutilizan
+    private String[] codigos = new String[16];
+
+    private String[] nombres = new String[16];
+
+    private String[][] palabras = new String[16][];
+
+    private int[] libres = new int[16];
+
+    private int totalLibres;
+
+    private int siguienteDocumento;
+
+    private long entradas;
+
+    public IndiceInvertido(int longitudPrefijo) {
+        if (longitudPrefijo < 1) {
+            throw new IllegalArgumentException("La longitud de prefijo del índice debe ser mayor que cero");
+        }
+        this.longitudPrefijo = longitudPrefijo;
+    }
+
+    // Alta o cambio de un producto: reemplaza sus prefijos por los del nombre nuevo
+    public void actualizar(String codigo, String nombre) {
+        String[] nuevas = palabrasDocumento(codigo, nombre);
+
+        candado.writeLock().lock();
+        try {
+            Integer existente = documentoPorCodigo.get(codigo);
+            int documento;
+            if (existente != null) {
+                documento = existente;
+                if (nombre.equals(nombres[documento])) {
+                    return;
+                }
+                quitarPrefijos(documento);
+            } else {
+                documento = nuevoDocumento();
+                documentoPorCodigo.put(codigo, documento);
+                codigos[documento] = codigo;
+            }
+            nombres[documento] = nombre;
+            palabras[documento] = nuevas;
+            for (String prefijo : prefijos(nuevas)) {
+                postingsPorPrefijo.computeIfAbsent(prefijo, clave -> new Postings()).agregar(documento);
+                entradas++;
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(String codigo) {
+        candado.writeLock().lock();
+        try {
+            Integer documento = documentoPorCodigo.remove(codigo);
+            if (documento == null) {
+                return;
+            }
+            quitarPrefijos(documento);
+            codigos[documento] = null;
+            nombres[documento] = null;
+            palabras[documento] = null;
+            if (totalLibres == libres.length) {
+                libres = Arrays.copyOf(libres, libres.length * 2);
+            }
+            libres[totalLibres++] = documento;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void vaciar() {
+        candado.writeLock().lock();
+        try {
+            documentoPorCodigo.clear();
+            postingsPorPrefijo.clear();
+            codigos = new String[16];
+            nombres = new String[16];
+            palabras = new String[16][];
+            libres = new int[16];
+            totalLibres = 0;
+            siguienteDocumento = 0;
+            entradas = 0;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // Los limite productos cuyo nombre o código contienen una palabra que empieza por cada palabra
+    // de la consulta, de mayor a menor puntuación
+    public List<Sugerencia> buscar(String consulta, int limite) {
+        String[] terminos = dividir(normalizar(consulta));
+        if (terminos.length == 0 || limite < 1) {
+            return List.of();
+        }
+
+        candado.readLock().lock();
+        try {
+            Postings[] listas = new Postings[terminos.length];
+            int menor = 0;
+            for (int i = 0; i < terminos.length; i++) {
+                String termino = terminos[i];
+                listas[i] = postingsPorPrefijo.get(termino.length() > longitudPrefijo
+                        ? termino.substring(0, longitudPrefijo) : termino);
+                if (listas[i] == null) {
+                    return List.of();
+                }
+                if (listas[i].tamano < listas[menor].tamano) {
+                    menor = i;
+                }
+            }
+
+            // Se recorre la lista más corta y se comprueba cada documento en las demás
+            MejoresK mejores = new MejoresK(limite, this);
+            Postings base = listas[menor];
+            candidatos:
+            for (int i = 0; i < base.tamano; i++) {
+                int documento = base.documentos[i];
+                for (int j = 0; j < listas.length; j++) {
+                    if (j != menor && !listas[j].contiene(documento)) {
+                        continue candidatos;
+                    }
+                }
+                double puntuacion = puntuar(documento, terminos);
+                if (puntuacion > 0) {
+                    mejores.ofrecer(documento, puntuacion);
+                }
+            }
+            return mejores.resultado();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public int documentos() {
+        candado.readLock().lock();
+        try {
+            return documentoPorCodigo.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public int prefijos() {
+        candado.readLock().lock();
+        try {
+            return postingsPorPrefijo.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // Total de referencias documento-prefijo: la memoria de las listas crece con este valor
+    public long entradas() {
+        candado.readLock().lock();
+        try {
+            return entradas;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // Por cada término, su mejor palabra del documento: coincidencia exacta (3) o prefijo (entre 1 y 2
+    // según cuánto de la palabra cubre), más 0,5 si es la primera palabra del nombre.
+    // 0 si algún término no es prefijo de ninguna palabra (términos más largos que longitudPrefijo,
+    // que el índice no distingue por sí solo)
+    private double puntuar(int documento, String[] terminos) {
+        String[] suyas = palabras[documento];
+        double total = 0;
+        for (String termino : terminos) {
+            double mejor = 0;
+            for (int i = 0; i < suyas.length; i++) {
+                String palabra = suyas[i];
+                if (!palabra.startsWith(termino)) {
+                    continue;
+                }
+                double puntos = palabra.length() == termino.length()
+                        ? 3
+                        : 1 + (double) termino.length() / palabra.length();
+                if (i == 0) {
+                    puntos += 0.5;
+                }
+                mejor = Math.max(mejor, puntos);
+            }
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    private void quitarPrefijos(int documento) {
+        for (String prefijo : prefijos(palabras[documento])) {
+            Postings lista = postingsPorPrefijo.get(prefijo);
+            if (lista != null && lista.quitar(documento)) {
+                entradas--;
+                if (lista.tamano == 0) {
+                    postingsPorPrefijo.remove(prefijo);
+                }
+            }
+        }
+    }
+
+    private int nuevoDocumento() {
+        if (totalLibres > 0) {
+            return libres[--totalLibres];
+        }
+        if (siguienteDocumento == codigos.length) {
+            int capacidad = codigos.length * 2;
+            codigos = Arrays.copyOf(codigos, capacidad);
+            nombres = Arrays.copyOf(nombres, capacidad);
+            palabras = Arrays.copyOf(palabras, capacidad);
+        }
+        return siguienteDocumento++;
+    }
+
+    // Prefijos distintos de las palabras; una palabra repetida o contenida en otra no duplica entradas
+    private Set<String> prefijos(String[] palabrasDocumento) {
+        Set<String> resultado = new HashSet<>();
+        for (String palabra : palabrasDocumento) {
+            int hasta = Math.min(palabra.length(), longitudPrefijo);
+            for (int longitud = 1; longitud <= hasta; longitud++) {
+                resultado.add(palabra.substring(0, longitud));
+            }
+        }
+        return resultado;
+    }
+
+    // Palabras del nombre seguidas de las del código, normalizadas ("AB-01" aporta "ab" y "01")
+    private static String[] palabrasDocumento(String codigo, String nombre) {
+        String[] delNombre = dividir(normalizar(nombre));
+        String[] delCodigo = dividir(normalizar(codigo));
+        String[] todas = Arrays.copyOf(delNombre, delNombre.length + delCodigo.length);
+        System.arraycopy(delCodigo, 0, todas, delNombre.length, delCodigo.length);
+        return todas;
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinTildes.toLowerCase(Locale.ROOT).strip();
+    }
+
+    private static String[] dividir(String texto) {
+        if (texto.isEmpty()) {
+            return SIN_PALABRAS;
+        }
+        return Arrays.stream(SEPARADOR.split(texto))
+                .filter(palabra -> !palabra.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    // Lista ordenada de documentos de un prefijo, en un int[] que crece al doble
+    private static final class Postings {
+
+        private int[] documentos = new int[4];
+
+        private int tamano;
+
+        void agregar(int documento) {
+            int posicion = Arrays.binarySearch(documentos, 0, tamano, documento);
+            if (posicion >= 0) {
+                return;
+            }
+            posicion = -posicion - 1;
+            if (tamano == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamano * 2);
+            }
+            System.arraycopy(documentos, posicion, documentos, posicion + 1, tamano - posicion);
+            documentos[posicion] = documento;
+            tamano++;
+        }
+
+        boolean quitar(int documento) {
+            int posicion = Arrays.binarySearch(documentos, 0, tamano, documento);
+            if (posicion < 0) {
+                return false;
+            }
+            System.arraycopy(documentos, posicion + 1, documentos, posicion, tamano - posicion - 1);
+            tamano--;
+            // Devuelve memoria cuando la lista queda muy por debajo de su capacidad
+            if (documentos.length > 16 && tamano < documentos.length / 4) {
+                documentos = Arrays.copyOf(documentos, documentos.length / 2);
+            }
+            return true;
+        }
+
+        boolean contiene(int documento) {
+            return Arrays.binarySearch(documentos, 0, tamano, documento) >= 0;
+        }
+    }
+
+    // Montículo de mínimos de tamaño fijo con los k mejores documentos, en arrays primitivos.
+    // El orden es el mismo del resultado: mayor puntuación y, a igualdad, el nombre más corto y
+    // luego el código. En la raíz queda el peor, que es el que sale cuando llega uno mejor
+    private static final class MejoresK {
+
+        private final IndiceInvertido indice;
+
+        private final int[] documentos;
+
+        private final double[] puntuaciones;
+
+        private int tamano;
+
+        MejoresK(int k, IndiceInvertido indice) {
+            this.indice = indice;
+            this.documentos = new int[k];
+            this.puntuaciones = new double[k];
+        }
+
+        void ofrecer(int documento, double puntuacion) {
+            if (tamano < documentos.length) {
+                documentos[tamano] = documento;
+                puntuaciones[tamano] = puntuacion;
+                subir(tamano++);
+            } else if (comparar(documento, puntuacion, documentos[0], puntuaciones[0]) < 0) {
+                documentos[0] = documento;
+                puntuaciones[0] = puntuacion;
+                bajar(0);
+            }
+        }
+
+        List<Sugerencia> resultado() {
+            Integer[] orden = new Integer[tamano];
+            for (int i = 0; i < tamano; i++) {
+                orden[i] = i;
+            }
+            Arrays.sort(orden, this::comparar);
+
+            List<Sugerencia> sugerencias = new ArrayList<>(tamano);
+            for (int posicion : orden) {
+                int documento = documentos[posicion];
+                sugerencias.add(new Sugerencia(indice.codigos[documento], indice.nombres[documento],
+                        puntuaciones[posicion]));
+            }
+            return sugerencias;
+        }
+
+        // Negativo si a va antes que b en el resultado
+        private int comparar(int documentoA, double puntuacionA, int documentoB, double puntuacionB) {
+            int porPuntuacion = Double.compare(puntuacionB, puntuacionA);
+            if (porPuntuacion != 0) {
+                return porPuntuacion;
+            }
+            String nombreA = indice.nombres[documentoA];
+            String nombreB = indice.nombres[documentoB];
+            int porLongitud = Integer.compare(nombreA.length(), nombreB.length());
+            return porLongitud != 0 ? porLongitud : indice.codigos[documentoA].compareTo(indice.codigos[documentoB]);
+        }
+
+        private int comparar(int posicionA, int posicionB) {
+            return comparar(documentos[posicionA], puntuaciones[posicionA], documentos[posicionB], puntuaciones[posicionB]);
+        }
+
+        private void subir(int i) {
+            while (i > 0) {
+                int padre = (i - 1) / 2;
+                if (comparar(padre, i) >= 0) {
+                    return;
+                }
+                intercambiar(i, padre);
+                i = padre;
+            }
+        }
+
+        private void bajar(int i) {
+            while (true) {
+                int peor = i;
+                int izquierda = 2 * i + 1;
+                int derecha = izquierda + 1;
+                if (izquierda < tamano && comparar(izquierda, peor) > 0) {
+                    peor = izquierda;
+                }
+                if (derecha < tamano && comparar(derecha, peor) > 0) {
+                    peor = derecha;
+                }
+                if (peor == i) {
+                    return;
+                }
+                intercambiar(i, peor);
+                i = peor;
+            }
+        }
+
+        private void intercambiar(int a, int b) {
+            int documento = documentos[a];
+            documentos[a] = documentos[b];
+            documentos[b] = documento;
+            double puntuacion = puntuaciones[a];
+            puntuaciones[a] = puntuaciones[b];
+            puntuaciones[b] = puntuacion;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.eam.microservicio_spring_mariadb.busqueda;
+
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.OyenteInvalidacion;
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
+import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Mantiene el IndiceInvertido de esta instancia al día con el catálogo.
+// Lo carga completo al arrancar y luego recibe por BusInvalidacion los códigos que cambian (altas,
+// cambios y bajas de ProductoService, aquí o en otras instancias). Los vuelve a leer de MariaDB en
+// su propio hilo y fuera de la transacción que los cambió, así que un cambio aparece en las
+// sugerencias unos milisegundos después del commit y nunca antes.
+@Component
+@ConditionalOnProperty(name = "productos.busqueda.habilitada", havingValue = "true", matchIfMissing = true)
+public class IndiceProductos implements OyenteInvalidacion, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceProductos.class);
+
+    // Espera antes de reintentar una carga o una recarga que falló (p. ej. base caída)
+    private static final long ESPERA_REINTENTO_MS = 5_000;
+
+    private final ProductoRepository productoRepository;
+
+    private final TransactionTemplate lectura;
+
+    private final IndiceInvertido indice;
+
+    private final int tamanoEnvio;
+
+    private final Set<String> pendientes = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean aplicacionPlanificada = new AtomicBoolean();
+
+    private volatile boolean listo;
+
+    // Un único hilo aplica todos los cambios, en orden, sin competir entre sí por el candado de escritura
+    private final ScheduledExecutorService actualizador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "busqueda-indice");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public IndiceProductos(ProductoRepository productoRepository, PlatformTransactionManager transactionManager,
+                           ProductoProperties propiedades) {
+        this.productoRepository = productoRepository;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.indice = new IndiceInvertido(propiedades.getBusqueda().getLongitudPrefijo());
+        this.tamanoEnvio = propiedades.getLote().getTamanoEnvio();
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        // El arranque no espera a la carga; mientras tanto las búsquedas responden que no está listo
+        actualizador.execute(this::cargar);
+    }
+
+    @PreDestroy
+    public void detener() {
+        actualizador.shutdownNow();
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    public List<Sugerencia> buscar(String texto, int limite) {
+        if (!listo) {
+            throw new IllegalStateException("El índice de búsqueda todavía se está cargando");
+        }
+        return indice.buscar(texto, limite);
+    }
+
+    @Override
+    public void invalidar(Collection<String> codigos) {
+        pendientes.addAll(codigos);
+        // Durante la carga inicial solo se acumulan; cargar() los aplica al terminar
+        if (listo && aplicacionPlanificada.compareAndSet(false, true)) {
+            actualizador.execute(this::aplicarPendientes);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("productos.busqueda.indice.documentos", indice, IndiceInvertido::documentos)
+                .description("Productos en el índice de búsqueda en memoria")
+                .register(registry);
+        Gauge.builder("productos.busqueda.indice.prefijos", indice, IndiceInvertido::prefijos)
+                .description("Prefijos distintos del índice de búsqueda en memoria")
+                .register(registry);
+        Gauge.builder("productos.busqueda.indice.entradas", indice, IndiceInvertido::entradas)
+                .description("Referencias producto-prefijo; la memoria del índice crece con este valor")
+                .register(registry);
+        Gauge.builder("productos.busqueda.indice.pendientes", pendientes, Set::size)
+                .description("Códigos cambiados que el índice todavía no ha vuelto a leer")
+                .register(registry);
+    }
+
+    void cargar() {
+        long inicio = System.nanoTime();
+        try {
+            indice.vaciar();
+            lectura.executeWithoutResult(estado -> {
+                try (Stream<ProductoVista> productos = productoRepository.streamVistas()) {
+                    productos.forEach(producto -> indice.actualizar(producto.codigo(), producto.nombre()));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el índice de búsqueda; se reintenta en {} ms", ESPERA_REINTENTO_MS, e);
+            actualizador.schedule(this::cargar, ESPERA_REINTENTO_MS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        listo = true;
+        log.info("Índice de búsqueda cargado: {} productos, {} prefijos, {} entradas en {} ms", indice.documentos(),
+                indice.prefijos(), indice.entradas(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+
+        // Lo que cambió mientras se leía el catálogo se vuelve a leer
+        aplicacionPlanificada.set(true);
+        aplicarPendientes();
+    }
+
+    void aplicarPendientes() {
+        // Se libera antes de leer: un aviso que llegue durante la lectura planifica otra pasada
+        aplicacionPlanificada.set(false);
+
+        List<String> bloque = new ArrayList<>(tamanoEnvio);
+        Iterator<String> iterador = pendientes.iterator();
+        while (iterador.hasNext()) {
+            bloque.add(iterador.next());
+            iterador.remove();
+            if (bloque.size() == tamanoEnvio || !iterador.hasNext()) {
+                if (!releer(bloque)) {
+                    return;
+                }
+                bloque = new ArrayList<>(tamanoEnvio);
+            }
+        }
+    }
+
+    // Aplica el estado actual de cada código: si ya no existe, se quita del índice
+    private boolean releer(List<String> codigos) {
+        Map<String, ProductoVista> actuales;
+        try {
+            actuales = productoRepository.findVistasByCodigoIn(codigos).stream()
+                    .collect(Collectors.toMap(ProductoVista::codigo, Function.identity()));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo actualizar el índice de búsqueda; se reintenta en {} ms", ESPERA_REINTENTO_MS, e);
+            pendientes.addAll(codigos);
+            if (aplicacionPlanificada.compareAndSet(false, true)) {
+                actualizador.schedule(this::aplicarPendientes, ESPERA_REINTENTO_MS, TimeUnit.MILLISECONDS);
+            }
+            return false;
+        }
+
+        for (String codigo : codigos) {
+            ProductoVista producto = actuales.get(codigo);
+            if (producto == null) {
+                indice.eliminar(codigo);
+            } else {
+                indice.actualizar(codigo, producto.nombre());
+            }
+        }
+        return true;
+    }
+}
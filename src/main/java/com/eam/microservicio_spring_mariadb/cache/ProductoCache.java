@@ -0,0 +1,83 @@
+package com.eam.microservicio_spring_mariadb.cache;
+
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.OyenteInvalidacion;
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Caché de lectura (read-through) de productos por código.
+// Guarda también los códigos inexistentes (Optional.empty) con un TTL más corto,
+// para que las búsquedas repetidas de códigos que no existen no lleguen a la base de datos.
+// Las entradas son vistas inmutables, así que se comparten entre peticiones sin riesgo de que
+// alguien modifique el valor cacheado.
+@Component
+public class ProductoCache implements MeterBinder, OyenteInvalidacion {
+
+    private final Cache<String, Optional<ProductoVista>> cache;
+
+    private final boolean habilitada;
+
+    public ProductoCache(ProductoProperties propiedades) {
+        ProductoProperties.Cache configuracion = propiedades.getCache();
+        this.habilitada = configuracion.isHabilitada();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(configuracion.getMaximoEntradas())
+                .expireAfter(new ExpiracionPorTipo(configuracion.getTtl(), configuracion.getTtlNegativo()))
+                .recordStats()
+                .build();
+    }
+
+    // Devuelve el producto en caché o lo carga una sola vez aunque lleguen varias peticiones a la vez
+    public Optional<ProductoVista> obtener(String codigo, Function<String, Optional<ProductoVista>> cargador) {
+        if (!habilitada) {
+            return cargador.apply(codigo);
+        }
+        return cache.get(codigo, cargador);
+    }
+
+    // Lo llama BusInvalidacion por cambios de esta instancia y de las demás
+    @Override
+    public void invalidar(Collection<String> codigos) {
+        cache.invalidateAll(codigos);
+    }
+
+    public void invalidarTodo() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Publica aciertos, fallos, desalojos y tamaño como métricas "cache.*" con cache=productos
+        CaffeineCacheMetrics.monitor(registry, cache, "productos");
+    }
+
+    // Los productos existentes y los códigos inexistentes caducan con TTL distintos
+    private record ExpiracionPorTipo(Duration ttl, Duration ttlNegativo) implements Expiry<String, Optional<ProductoVista>> {
+
+        @Override
+        public long expireAfterCreate(String codigo, Optional<ProductoVista> producto, long tiempoActual) {
+            return (producto.isPresent() ? ttl : ttlNegativo).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String codigo, Optional<ProductoVista> producto, long tiempoActual, long duracionActual) {
+            return expireAfterCreate(codigo, producto, tiempoActual);
+        }
+
+        @Override
+        public long expireAfterRead(String codigo, Optional<ProductoVista> producto, long tiempoActual, long duracionActual) {
+            return duracionActual;
+        }
+    }
+}
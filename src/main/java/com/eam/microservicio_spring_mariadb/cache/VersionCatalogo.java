@@ -0,0 +1,62 @@
+package com.eam.microservicio_spring_mariadb.cache;
+
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.OyenteInvalidacion;
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Versión del catálogo completo en esta instancia: cambia con cualquier escritura local o
+// remota (vía BusInvalidacion), lo que permite responder 304 en /listar sin leer la tabla.
+// Un evento perdido (datagrama descartado, fila purgada antes de leerla, SQL hecho a mano) no
+// llegaría nunca, así que además cambia en cada tramo de productos.cache.ttl: la misma cota de
+// obsolescencia que la caché de productos.
+@Component
+public class VersionCatalogo implements OyenteInvalidacion {
+
+    // Distingue los contadores de distintos arranques e instancias
+    private final String epoca = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicLong contador = new AtomicLong();
+
+    private final long edadMaximaMs;
+
+    private final LongSupplier reloj;
+
+    private volatile long ultimaModificacion;
+
+    @Autowired
+    public VersionCatalogo(ProductoProperties propiedades) {
+        this(propiedades.getCache().getTtl(), System::currentTimeMillis);
+    }
+
+    VersionCatalogo(Duration edadMaxima, LongSupplier reloj) {
+        this.edadMaximaMs = Math.max(1, edadMaxima.toMillis());
+        this.reloj = reloj;
+        this.ultimaModificacion = reloj.getAsLong();
+    }
+
+    @Override
+    public void invalidar(Collection<String> codigos) {
+        contador.incrementAndGet();
+        ultimaModificacion = reloj.getAsLong();
+    }
+
+    public String etag() {
+        return "\"c" + epoca + "-" + contador.get() + "-" + tramo() + "\"";
+    }
+
+    // Un If-Modified-Since anterior al tramo actual tampoco recibe 304
+    public long ultimaModificacion() {
+        return Math.max(ultimaModificacion, tramo() * edadMaximaMs);
+    }
+
+    private long tramo() {
+        return reloj.getAsLong() / edadMaximaMs;
+    }
+}
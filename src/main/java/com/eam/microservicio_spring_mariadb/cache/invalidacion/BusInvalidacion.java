@@ -0,0 +1,152 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Punto único por el que el servicio avisa que cambiaron productos.
+// Notifica de inmediato a los oyentes locales y, tras el commit, vuelve a notificarlos y
+// publica el evento para que el resto de instancias invaliden sus propias cachés.
+// Un fallo al publicar nunca llega al llamador: el cambio ya está confirmado y responder con error
+// haría que el cliente lo reintentara (p. ej. un ajuste de stock aplicado dos veces). El evento
+// queda en cola y se reintenta en segundo plano.
+@Component
+public class BusInvalidacion {
+
+    private static final Logger log = LoggerFactory.getLogger(BusInvalidacion.class);
+
+    private static final long ESPERA_REINTENTO_MS = 1_000;
+
+    // Con el transporte caído mucho tiempo se descartan los más antiguos; esas entradas
+    // caducan igualmente por el TTL de la caché de cada instancia
+    static final int MAXIMO_PENDIENTES = 10_000;
+
+    // Identifica a esta instancia para ignorar los eventos que ella misma publicó
+    @Getter
+    private final String origen = UUID.randomUUID().toString();
+
+    private final TransporteInvalidacion transporte;
+
+    private final List<OyenteInvalidacion> oyentes;
+
+    private final Queue<EventoInvalidacion> pendientes = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger numeroPendientes = new AtomicInteger();
+
+    private final ScheduledExecutorService reintentos = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "invalidacion-reintentos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public BusInvalidacion(TransporteInvalidacion transporte, List<OyenteInvalidacion> oyentes) {
+        this.transporte = transporte;
+        this.oyentes = oyentes;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        transporte.suscribir(evento -> {
+            if (!origen.equals(evento.origen())) {
+                notificar(evento.codigos());
+            }
+        });
+        reintentos.scheduleWithFixedDelay(this::reintentarPendientes, ESPERA_REINTENTO_MS, ESPERA_REINTENTO_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        reintentos.shutdownNow();
+    }
+
+    public int pendientes() {
+        return numeroPendientes.get();
+    }
+
+    public void invalidar(String codigo) {
+        invalidar(List.of(codigo));
+    }
+
+    public void invalidar(Collection<String> codigos) {
+        if (codigos.isEmpty()) {
+            return;
+        }
+        List<String> copia = List.copyOf(codigos);
+        notificar(copia);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Una lectura concurrente pudo recargar la versión anterior antes del commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Nada puede salir de afterCommit: el llamador vería un error tras el commit
+                    try {
+                        notificar(copia);
+                    } catch (RuntimeException e) {
+                        log.warn("Error al invalidar localmente {} tras el commit: {}", copia, e.getMessage());
+                    }
+                    publicar(new EventoInvalidacion(origen, copia));
+                }
+            });
+        } else {
+            publicar(new EventoInvalidacion(origen, copia));
+        }
+    }
+
+    private void notificar(List<String> codigos) {
+        oyentes.forEach(oyente -> oyente.invalidar(codigos));
+    }
+
+    private void publicar(EventoInvalidacion evento) {
+        // Si ya hay eventos en cola, el transporte está fallando: este espera su turno
+        if (numeroPendientes.get() == 0) {
+            try {
+                transporte.publicar(evento);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("No se pudo publicar la invalidación de {}; se reintenta en segundo plano: {}",
+                        evento.codigos(), e.getMessage());
+            }
+        }
+        encolar(evento);
+    }
+
+    private void encolar(EventoInvalidacion evento) {
+        pendientes.add(evento);
+        if (numeroPendientes.incrementAndGet() > MAXIMO_PENDIENTES && pendientes.poll() != null) {
+            numeroPendientes.decrementAndGet();
+            log.warn("Cola de invalidaciones llena; se descarta la más antigua");
+        }
+    }
+
+    void reintentarPendientes() {
+        EventoInvalidacion evento;
+        while ((evento = pendientes.peek()) != null) {
+            try {
+                transporte.publicar(evento);
+            } catch (RuntimeException e) {
+                log.warn("Siguen sin publicarse {} invalidaciones: {}", numeroPendientes.get(), e.getMessage());
+                return;
+            }
+            if (pendientes.poll() != null) {
+                numeroPendientes.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import java.util.List;
+
+// Mensaje que viaja entre instancias: qué códigos cambiaron y qué instancia los cambió
+public record EventoInvalidacion(String origen, List<String> codigos) {
+}
@@ -0,0 +1,9 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import java.util.Collection;
+
+// Componente local que debe enterarse cuando cambian productos (en esta u otra instancia)
+public interface OyenteInvalidacion {
+
+    void invalidar(Collection<String> codigos);
+}
@@ -0,0 +1,12 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import java.util.function.Consumer;
+
+// Medio por el que las instancias se avisan de los cambios.
+// Se elige con productos.cache.invalidacion.transporte (local, mariadb o multicast).
+public interface TransporteInvalidacion {
+
+    void publicar(EventoInvalidacion evento);
+
+    void suscribir(Consumer<EventoInvalidacion> receptor);
+}
@@ -0,0 +1,26 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Entrega los eventos dentro de la misma JVM. Sirve para una sola instancia y para pruebas.
+@Component
+@ConditionalOnProperty(name = "productos.cache.invalidacion.transporte", havingValue = "local", matchIfMissing = true)
+public class TransporteInvalidacionLocal implements TransporteInvalidacion {
+
+    private final List<Consumer<EventoInvalidacion>> receptores = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publicar(EventoInvalidacion evento) {
+        receptores.forEach(receptor -> receptor.accept(evento));
+    }
+
+    @Override
+    public void suscribir(Consumer<EventoInvalidacion> receptor) {
+        receptores.add(receptor);
+    }
+}
@@ -0,0 +1,194 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Transporte sin infraestructura extra: cada instancia inserta sus eventos en una tabla de
+// MariaDB (productos_invalidaciones, migración V3) y sondea las filas nuevas cada pocos milisegundos.
+@Component
+@ConditionalOnProperty(name = "productos.cache.invalidacion.transporte", havingValue = "mariadb")
+public class TransporteInvalidacionMariaDb implements TransporteInvalidacion {
+
+    private static final Logger log = LoggerFactory.getLogger(TransporteInvalidacionMariaDb.class);
+
+    private static final int PAGINA = 1000;
+
+    private static final String LEER_NUEVOS = """
+            SELECT id, origen, codigos
+            FROM productos_invalidaciones
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?""";
+
+    // Solo ids: recorre lo ya leído que aún no está por debajo de la marca segura para encontrar
+    // inserts que hicieron commit tarde. "consolidado" indica que la fila es lo bastante antigua
+    // como para que ningún insert con id menor siga pendiente de commit
+    private static final String LEER_SIN_CONSOLIDAR = """
+            SELECT id, creado_en < NOW(3) - INTERVAL ? SECOND AS consolidado
+            FROM productos_invalidaciones
+            WHERE id > ? AND id <= ?
+            ORDER BY id
+            LIMIT ?""";
+
+    private static final String LEER_UNO = "SELECT id, origen, codigos FROM productos_invalidaciones WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    // publicar() llega desde afterCommit con la transacción terminada aún ligada al hilo: un INSERT
+    // ahí se uniría a ella y nunca haría commit. Cada evento va en su propia transacción
+    private final TransactionTemplate transaccionPropia;
+
+    private final ProductoProperties.Invalidacion configuracion;
+
+    private final List<Consumer<EventoInvalidacion>> receptores = new CopyOnWriteArrayList<>();
+
+    // Ids ya entregados que aún están por encima de la marca segura
+    private final Set<Long> procesados = new HashSet<>();
+
+    private final ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "invalidacion-mariadb");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Todo id menor o igual a esta marca ya fue entregado o descartado
+    private long marcaSegura;
+
+    // Mayor id leído: las filas nuevas se piden a partir de aquí aunque la marca siga atrás,
+    // así la latencia no depende de cuántos eventos quepan en el margen de consolidación
+    private long ultimoLeido;
+
+    public TransporteInvalidacionMariaDb(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                         PlatformTransactionManager transactionManager,
+                                         ProductoProperties propiedades) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transaccionPropia = new TransactionTemplate(transactionManager);
+        this.transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.configuracion = propiedades.getCache().getInvalidacion();
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        // Solo interesan los cambios posteriores al arranque: la caché empieza vacía
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM productos_invalidaciones", Long.class);
+        marcaSegura = maximo == null ? 0 : maximo;
+        ultimoLeido = marcaSegura;
+
+        long intervalo = configuracion.getIntervaloSondeo().toMillis();
+        planificador.scheduleWithFixedDelay(this::sondear, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        planificador.scheduleWithFixedDelay(this::purgar, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void detener() {
+        planificador.shutdownNow();
+    }
+
+    @Override
+    public void publicar(EventoInvalidacion evento) {
+        String codigos;
+        try {
+            codigos = objectMapper.writeValueAsString(evento.codigos());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento de invalidación", e);
+        }
+        transaccionPropia.executeWithoutResult(estado -> jdbcTemplate.update(
+                "INSERT INTO productos_invalidaciones (origen, codigos) VALUES (?, ?)", evento.origen(), codigos));
+    }
+
+    @Override
+    public void suscribir(Consumer<EventoInvalidacion> receptor) {
+        receptores.add(receptor);
+    }
+
+    void sondear() {
+        try {
+            leerNuevos();
+            buscarHuecos();
+            procesados.removeIf(id -> id <= marcaSegura);
+        } catch (Exception e) {
+            // Un fallo puntual no debe detener el sondeo; se reintenta en el siguiente ciclo
+            log.warn("Error al sondear invalidaciones de caché: {}", e.getMessage());
+        }
+    }
+
+    private void leerNuevos() throws JsonProcessingException {
+        List<Map<String, Object>> filas;
+        do {
+            filas = jdbcTemplate.queryForList(LEER_NUEVOS, ultimoLeido, PAGINA);
+            for (Map<String, Object> fila : filas) {
+                entregar(fila);
+                ultimoLeido = ((Number) fila.get("id")).longValue();
+            }
+        } while (filas.size() == PAGINA);
+    }
+
+    // Un hueco en los ids puede ser un insert aún sin commit: la marca solo avanza sobre filas
+    // consolidadas y contiguas desde el inicio, y lo que aparece en un hueco se entrega al verlo
+    private void buscarHuecos() throws JsonProcessingException {
+        long desde = marcaSegura;
+        boolean avanzarMarca = true;
+        List<Map<String, Object>> filas;
+        do {
+            filas = jdbcTemplate.queryForList(LEER_SIN_CONSOLIDAR,
+                    configuracion.getMargenConsolidacion().toSeconds(), desde, ultimoLeido, PAGINA);
+            for (Map<String, Object> fila : filas) {
+                long id = ((Number) fila.get("id")).longValue();
+                if (!procesados.contains(id)) {
+                    for (Map<String, Object> tardia : jdbcTemplate.queryForList(LEER_UNO, id)) {
+                        entregar(tardia);
+                    }
+                }
+                avanzarMarca = avanzarMarca && ((Number) fila.get("consolidado")).intValue() == 1;
+                if (avanzarMarca) {
+                    marcaSegura = id;
+                }
+                desde = id;
+            }
+        } while (filas.size() == PAGINA);
+    }
+
+    private void entregar(Map<String, Object> fila) throws JsonProcessingException {
+        long id = ((Number) fila.get("id")).longValue();
+        if (procesados.add(id)) {
+            List<String> codigos = objectMapper.readValue((String) fila.get("codigos"), new TypeReference<>() {
+            });
+            EventoInvalidacion evento = new EventoInvalidacion((String) fila.get("origen"), codigos);
+            receptores.forEach(receptor -> receptor.accept(evento));
+        }
+    }
+
+    void purgar() {
+        try {
+            jdbcTemplate.update("DELETE FROM productos_invalidaciones WHERE creado_en < NOW(3) - INTERVAL ? SECOND",
+                    configuracion.getRetencion().toSeconds());
+        } catch (Exception e) {
+            log.warn("Error al purgar invalidaciones antiguas: {}", e.getMessage());
+        }
+    }
+}
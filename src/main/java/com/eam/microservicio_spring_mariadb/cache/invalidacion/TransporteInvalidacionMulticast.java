@@ -0,0 +1,137 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Transporte por UDP multicast dentro de la red de las réplicas. No necesita servidor
+// intermedio, pero UDP puede perder paquetes: en ese caso el TTL de la caché acota el
+// tiempo que una entrada puede quedar obsoleta.
+@Component
+@ConditionalOnProperty(name = "productos.cache.invalidacion.transporte", havingValue = "multicast")
+public class TransporteInvalidacionMulticast implements TransporteInvalidacion {
+
+    private static final Logger log = LoggerFactory.getLogger(TransporteInvalidacionMulticast.class);
+
+    // Mantiene cada datagrama por debajo del MTU habitual para evitar fragmentación IP
+    private static final int TAMANO_MAXIMO_DATAGRAMA = 1400;
+
+    private final ObjectMapper objectMapper;
+
+    private final ProductoProperties.Invalidacion configuracion;
+
+    private final List<Consumer<EventoInvalidacion>> receptores = new CopyOnWriteArrayList<>();
+
+    private MulticastSocket socket;
+
+    private InetSocketAddress grupo;
+
+    private NetworkInterface interfaz;
+
+    private Thread receptor;
+
+    public TransporteInvalidacionMulticast(ObjectMapper objectMapper, ProductoProperties propiedades) {
+        this.objectMapper = objectMapper;
+        this.configuracion = propiedades.getCache().getInvalidacion();
+    }
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        grupo = new InetSocketAddress(InetAddress.getByName(configuracion.getGrupoMulticast()),
+                configuracion.getPuertoMulticast());
+        interfaz = configuracion.getInterfazMulticast() == null
+                ? null
+                : NetworkInterface.getByName(configuracion.getInterfazMulticast());
+
+        socket = new MulticastSocket(configuracion.getPuertoMulticast());
+        socket.setTimeToLive(configuracion.getTtlMulticast());
+        if (interfaz != null) {
+            socket.setNetworkInterface(interfaz);
+        }
+        socket.joinGroup(grupo, interfaz);
+
+        receptor = new Thread(this::recibir, "invalidacion-multicast");
+        receptor.setDaemon(true);
+        receptor.start();
+    }
+
+    @PreDestroy
+    public void detener() throws IOException {
+        socket.leaveGroup(grupo, interfaz);
+        socket.close();
+    }
+
+    @Override
+    public void publicar(EventoInvalidacion evento) {
+        try {
+            for (EventoInvalidacion parte : dividir(evento)) {
+                byte[] datos = objectMapper.writeValueAsBytes(parte);
+                socket.send(new DatagramPacket(datos, datos.length, grupo));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo enviar el evento de invalidación", e);
+        }
+    }
+
+    @Override
+    public void suscribir(Consumer<EventoInvalidacion> receptor) {
+        receptores.add(receptor);
+    }
+
+    private void recibir() {
+        byte[] buffer = new byte[64 * 1024];
+        while (!socket.isClosed()) {
+            try {
+                DatagramPacket paquete = new DatagramPacket(buffer, buffer.length);
+                socket.receive(paquete);
+                EventoInvalidacion evento = objectMapper.readValue(
+                        paquete.getData(), paquete.getOffset(), paquete.getLength(), EventoInvalidacion.class);
+                receptores.forEach(r -> r.accept(evento));
+            } catch (SocketException e) {
+                // El socket se cerró al detener la aplicación
+                return;
+            } catch (Exception e) {
+                log.warn("Evento de invalidación multicast descartado: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Reparte los códigos en varios eventos para que cada uno quepa en un datagrama
+    private List<EventoInvalidacion> dividir(EventoInvalidacion evento) {
+        List<EventoInvalidacion> partes = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        int tamano = 0;
+        for (String codigo : evento.codigos()) {
+            int tamanoCodigo = codigo.length() * 3 + 4;
+            if (!actual.isEmpty() && tamano + tamanoCodigo > TAMANO_MAXIMO_DATAGRAMA - 100) {
+                partes.add(new EventoInvalidacion(evento.origen(), actual));
+                actual = new ArrayList<>();
+                tamano = 0;
+            }
+            actual.add(codigo);
+            tamano += tamanoCodigo;
+        }
+        if (!actual.isEmpty()) {
+            partes.add(new EventoInvalidacion(evento.origen(), actual));
+        }
+        return partes;
+    }
+}
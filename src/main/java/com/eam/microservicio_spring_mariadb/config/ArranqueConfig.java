@@ -0,0 +1,25 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import com.eam.microservicio_spring_mariadb.busqueda.IndiceProductos;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.BusInvalidacion;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.TransporteInvalidacion;
+import com.eam.microservicio_spring_mariadb.pool.MonitorPool;
+import com.eam.microservicio_spring_mariadb.stock.EscrituraDiferidaStock;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Con spring.main.lazy-initialization=true (imagen Docker) cada bean se crea en su primer uso.
+// Estos trabajan por su cuenta desde el arranque y no pueden esperar a una petición: carga del
+// índice de búsqueda, recuperación del diario de stock, escucha de invalidaciones de otras réplicas,
+// medición del pool de conexiones y la comprobación de la configuración fijada por AOT.
+@Configuration
+public class ArranqueConfig {
+
+    // static para que el post-procesador de inicialización perezosa lo vea sin crear esta clase
+    @Bean
+    public static LazyInitializationExcludeFilter beansDeArranque() {
+        return LazyInitializationExcludeFilter.forBeanTypes(IndiceProductos.class, EscrituraDiferidaStock.class,
+                BusInvalidacion.class, TransporteInvalidacion.class, MonitorPool.class, CoherenciaAot.class);
+    }
+}
@@ -0,0 +1,98 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import com.eam.microservicio_spring_mariadb.busqueda.IndiceProductos;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.TransporteInvalidacion;
+import com.eam.microservicio_spring_mariadb.stock.EscrituraDiferidaStock;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Con el procesado AOT (imagen construida con AOT=true) los beans condicionales se decidieron al
+// construir: cambiar después su propiedad no crea ni quita ninguno y la aplicación funcionaría en
+// silencio con otra configuración. Aquí se compara lo que hay en el contexto con lo que piden las
+// propiedades al arrancar, y si no coinciden la aplicación no arranca.
+@Component
+public class CoherenciaAot implements SmartInitializingSingleton {
+
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    private final Environment environment;
+
+    public CoherenciaAot(ConfigurableListableBeanFactory beanFactory, Environment environment) {
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        List<String> diferencias = diferencias();
+        if (!diferencias.isEmpty()) {
+            throw new IllegalStateException("La imagen se construyó con AOT para otra configuración; "
+                    + "reconstruirla con los mismos valores o arrancar sin AOT: " + String.join("; ", diferencias));
+        }
+    }
+
+    // Cada diferencia dice qué se construyó y qué se pide ahora
+    List<String> diferencias() {
+        List<String> diferencias = new ArrayList<>();
+
+        String transporte = environment.getProperty("productos.cache.invalidacion.transporte", "local");
+        String construido = transporteConstruido();
+        if (construido != null && !construido.equals(transporte)) {
+            diferencias.add("productos.cache.invalidacion.transporte es " + transporte + " y la imagen tiene " + construido);
+        }
+
+        comparar(diferencias, "productos.stock.escritura-diferida.habilitada",
+                environment.getProperty("productos.stock.escritura-diferida.habilitada", Boolean.class, false),
+                existe(EscrituraDiferidaStock.class));
+        comparar(diferencias, "productos.busqueda.habilitada",
+                environment.getProperty("productos.busqueda.habilitada", Boolean.class, true),
+                existe(IndiceProductos.class));
+
+        boolean virtuales = Threading.VIRTUAL.isActive(environment);
+        if (beanFactory.containsBeanDefinition("applicationTaskExecutor")) {
+            Class<?> ejecutor = beanFactory.getType("applicationTaskExecutor", false);
+            comparar(diferencias, "spring.threads.virtual.enabled", virtuales,
+                    ejecutor != null && SimpleAsyncTaskExecutor.class.isAssignableFrom(ejecutor));
+        }
+        comparar(diferencias, "productos.concurrencia.limite-peticiones (con hilos virtuales)",
+                virtuales && environment.getProperty("productos.concurrencia.limite-peticiones", Integer.class, -1) != 0,
+                beanFactory.containsBeanDefinition("limitePeticionesFilter"));
+        return diferencias;
+    }
+
+    private String transporteConstruido() {
+        for (String nombre : beanFactory.getBeanNamesForType(TransporteInvalidacion.class, true, false)) {
+            Class<?> tipo = beanFactory.getType(nombre, false);
+            ConditionalOnProperty condicion = tipo == null ? null
+                    : AnnotationUtils.findAnnotation(tipo, ConditionalOnProperty.class);
+            if (condicion != null) {
+                return condicion.havingValue();
+            }
+        }
+        return null;
+    }
+
+    private boolean existe(Class<?> tipo) {
+        return beanFactory.getBeanNamesForType(tipo, true, false).length > 0;
+    }
+
+    private static void comparar(List<String> diferencias, String propiedad, boolean pedido, boolean construido) {
+        if (pedido != construido) {
+            diferencias.add(propiedad + (pedido ? " está activo" : " está desactivado")
+                    + " y la imagen se construyó " + (construido ? "con él" : "sin él"));
+        }
+    }
+}
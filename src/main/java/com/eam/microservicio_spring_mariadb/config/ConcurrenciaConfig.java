@@ -0,0 +1,63 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+// Límite de peticiones simultáneas sobre /api/*, solo con hilos virtuales. Con hilos de plataforma
+// el pool de Tomcat ya acota la concurrencia y Hikari encola el resto hasta connection-timeout;
+// un 503 tras espera-limite ahí solo añadiría rechazos que antes no había
+@Configuration
+public class ConcurrenciaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrenciaConfig.class);
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    @ConditionalOnExpression("${productos.concurrencia.limite-peticiones:-1} != 0")
+    public FilterRegistrationBean<LimitePeticionesFilter> limitePeticionesFilter(ProductoProperties propiedades,
+                                                                                 DataSource dataSource) {
+        ProductoProperties.Concurrencia concurrencia = propiedades.getConcurrencia();
+        int tamanoPool = tamanoPool(dataSource, propiedades.getPool());
+        int limite = limite(concurrencia, tamanoPool);
+        if (concurrencia.getLimitePeticiones() > 0
+                && limite > tamanoPool * concurrencia.getPeticionesPorConexion()) {
+            // Más peticiones en curso que conexiones para atenderlas: esperan en Hikari en vez de
+            // recibir el 503 y, pasado connection-timeout, fallan igual
+            log.warn("limite-peticiones={} supera {} peticiones por conexión de un pool de {}",
+                    limite, concurrencia.getPeticionesPorConexion(), tamanoPool);
+        }
+        log.info("Límite de {} peticiones simultáneas en /api/* (pool de {} conexiones)", limite, tamanoPool);
+
+        FilterRegistrationBean<LimitePeticionesFilter> registro = new FilterRegistrationBean<>(
+                new LimitePeticionesFilter(limite, concurrencia.getEsperaLimite()));
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+
+    // Con limite-peticiones negativo sale del pool, así un pool más pequeño también baja el límite
+    static int limite(ProductoProperties.Concurrencia concurrencia, int tamanoPool) {
+        if (concurrencia.getLimitePeticiones() > 0) {
+            return concurrencia.getLimitePeticiones();
+        }
+        return Math.max(1, tamanoPool * concurrencia.getPeticionesPorConexion());
+    }
+
+    // El tamaño ya fijado por PoolConexionesConfig; el pool en sí aún no arranca
+    private static int tamanoPool(DataSource dataSource, ProductoProperties.Pool pool) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (SQLException e) {
+            return pool.getTamanoSinNucleos();
+        }
+    }
+}
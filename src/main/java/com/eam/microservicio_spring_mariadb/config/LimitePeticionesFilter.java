@@ -0,0 +1,105 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Compartimento estanco (bulkhead) para la API: limita las peticiones en curso a la vez.
+// Con hilos virtuales Tomcat ya no pone tope a la concurrencia, así que sin este límite miles de
+// peticiones se pondrían en cola dentro de Hikari compitiendo por unas pocas conexiones.
+// Las que no consiguen permiso a tiempo reciben 503 en lugar de agotar el connection-timeout.
+// Una exportación NDJSON conserva su permiso mientras dura el modo asíncrono: sigue ocupando una
+// conexión del pool hasta terminar o hasta spring.mvc.async.request-timeout.
+public class LimitePeticionesFilter extends OncePerRequestFilter {
+
+    private final Semaphore permisos;
+
+    private final long esperaMaximaMs;
+
+    public LimitePeticionesFilter(int limite, Duration esperaMaxima) {
+        this.permisos = new Semaphore(limite);
+        this.esperaMaximaMs = esperaMaxima.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean obtenido;
+        try {
+            obtenido = permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            obtenido = false;
+        }
+
+        if (!obtenido) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("El servicio está saturado, intente de nuevo en unos segundos");
+            return;
+        }
+
+        boolean asincrona = false;
+        try {
+            chain.doFilter(request, response);
+            asincrona = request.isAsyncStarted();
+        } finally {
+            if (asincrona) {
+                liberarAlTerminar(request);
+            } else {
+                permisos.release();
+            }
+        }
+    }
+
+    // Tras un timeout o un error el contenedor completa igualmente; la bandera evita liberar dos veces
+    private void liberarAlTerminar(HttpServletRequest request) {
+        AtomicBoolean liberado = new AtomicBoolean();
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent evento) {
+                liberar();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent evento) {
+                liberar();
+            }
+
+            @Override
+            public void onError(AsyncEvent evento) {
+                liberar();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent evento) {
+                // Un nuevo ciclo asíncrono sobre la misma petición sigue necesitando el permiso
+                evento.getAsyncContext().addListener(this);
+            }
+
+            private void liberar() {
+                if (liberado.compareAndSet(false, true)) {
+                    permisos.release();
+                }
+            }
+        });
+    }
+
+    // Permisos libres en este momento (para métricas y pruebas)
+    public int disponibles() {
+        return permisos.availablePermits();
+    }
+}
@@ -0,0 +1,25 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Métricas propias de la aplicación que Spring Boot no registra por sí solo.
+// Las de HTTP, pool Hikari, repositorios y estadísticas globales de Hibernate son automáticas.
+@Configuration
+public class MetricasConfig {
+
+    // Ejecuciones, filas y tiempo de cada consulta HQL/JPQL ("hibernate.query", etiqueta query).
+    // Depende de hibernate.generate_statistics, igual que las métricas globales de Hibernate.
+    @Bean
+    @ConditionalOnProperty(name = "spring.jpa.properties.hibernate.generate_statistics", havingValue = "true")
+    public MeterBinder metricasConsultasHibernate(EntityManagerFactory entityManagerFactory) {
+        return new HibernateQueryMetrics(entityManagerFactory.unwrap(SessionFactory.class), "entityManagerFactory",
+                Tags.empty());
+    }
+}
@@ -0,0 +1,215 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Parámetros configurables del microservicio de productos (prefijo "productos")
+@ConfigurationProperties(prefix = "productos")
+@Getter
+@Setter
+public class ProductoProperties {
+
+    private Paginacion paginacion = new Paginacion();
+
+    private Lote lote = new Lote();
+
+    private Cache cache = new Cache();
+
+    private Concurrencia concurrencia = new Concurrencia();
+
+    private Stock stock = new Stock();
+
+    private Sql sql = new Sql();
+
+    private Busqueda busqueda = new Busqueda();
+
+    private Pool pool = new Pool();
+
+    @Getter
+    @Setter
+    public static class Paginacion {
+
+        // Tamaño de página cuando el cliente no envía uno
+        private int tamanoPorDefecto = 50;
+
+        // Límite duro: ninguna página devuelve más filas que esto
+        private int tamanoMaximo = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Lote {
+
+        // Máximo de productos aceptados en una sola petición por lote
+        private int maximoItems = 10000;
+
+        // Filas por cada envío JDBC batch al servidor
+        private int tamanoEnvio = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        private boolean habilitada = true;
+
+        // Número máximo de códigos en caché; al superarlo Caffeine desaloja por frecuencia de uso
+        private long maximoEntradas = 100_000;
+
+        // Vida de un producto existente en caché
+        private Duration ttl = Duration.ofMinutes(10);
+
+        // Vida de un código inexistente en caché (caché negativa)
+        private Duration ttlNegativo = Duration.ofSeconds(30);
+
+        private Invalidacion invalidacion = new Invalidacion();
+    }
+
+    @Getter
+    @Setter
+    public static class Invalidacion {
+
+        // local (una sola instancia), mariadb (tabla sondeada) o multicast (UDP)
+        private String transporte = "local";
+
+        // Transporte mariadb: cada cuánto se buscan eventos nuevos (cota de obsolescencia)
+        private Duration intervaloSondeo = Duration.ofMillis(100);
+
+        // Transporte mariadb: antigüedad a partir de la cual un hueco de ids se da por cerrado
+        private Duration margenConsolidacion = Duration.ofSeconds(2);
+
+        // Transporte mariadb: tiempo que se conservan los eventos en la tabla
+        private Duration retencion = Duration.ofMinutes(5);
+
+        // Transporte multicast: grupo, puerto, interfaz de red (null = la del sistema) y TTL IP
+        private String grupoMulticast = "239.255.27.1";
+
+        private int puertoMulticast = 45565;
+
+        private String interfazMulticast;
+
+        private int ttlMulticast = 1;
+    }
+
+    @Getter
+    @Setter
+    public static class Concurrencia {
+
+        // Intentos totales de una actualización con reintento ante conflictos de versión
+        private int reintentosMaximos = 5;
+
+        // Espera base entre intentos; crece con cada intento y lleva una parte aleatoria
+        private Duration esperaBase = Duration.ofMillis(10);
+
+        // Peticiones /api en curso a la vez con hilos virtuales: -1 = peticionesPorConexion veces
+        // el tamaño del pool de conexiones, 0 = sin límite
+        private int limitePeticiones = -1;
+
+        // Con el límite derivado, peticiones en curso por conexión del pool: las que no usan la
+        // base o la sueltan pronto dejan sitio a otras sin que la espera en Hikari llegue al timeout
+        private int peticionesPorConexion = 3;
+
+        // Lo que una petición espera un permiso antes de responder 503
+        private Duration esperaLimite = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Stock {
+
+        private EscrituraDiferida escrituraDiferida = new EscrituraDiferida();
+    }
+
+    @Getter
+    @Setter
+    public static class EscrituraDiferida {
+
+        // Desactivada: cada ajuste de stock es un UPDATE condicional inmediato
+        private boolean habilitada = false;
+
+        // Tiempo máximo entre que se acepta un ajuste y que llega a MariaDB (cota de obsolescencia)
+        private Duration retrasoMaximo = Duration.ofMillis(50);
+
+        // Carpeta del diario local; debe estar en disco persistente y ser exclusiva de cada instancia
+        private String directorioDiario = "data/stock-diario";
+
+        // Tiempo que se recuerda en MariaDB qué segmentos del diario ya se aplicaron
+        private Duration retencionSegmentos = Duration.ofDays(7);
+    }
+
+    @Getter
+    @Setter
+    public static class Busqueda {
+
+        // Índice invertido en memoria para /sugerencias; desactivado no se carga ni ocupa memoria
+        private boolean habilitada = true;
+
+        // Prefijos indexados por palabra: más largo distingue mejor los términos largos a cambio
+        // de un int más por producto y carácter
+        private int longitudPrefijo = 10;
+
+        private int limitePorDefecto = 10;
+
+        private int limiteMaximo = 50;
+    }
+
+    @Getter
+    @Setter
+    public static class Sql {
+
+        private ConsultasLentas consultasLentas = new ConsultasLentas();
+    }
+
+    @Getter
+    @Setter
+    public static class ConsultasLentas {
+
+        private boolean habilitada = true;
+
+        // Las sentencias que tardan al menos esto se registran con sus parámetros
+        private Duration umbral = Duration.ofMillis(200);
+
+        // Avisos por segundo como máximo; el resto solo se cuenta
+        private int maximoPorSegundo = 5;
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        // Núcleos del servidor MariaDB para la fórmula núcleos * 2 + 1; 0 = desconocidos, se usa
+        // tamanoSinNucleos. Los núcleos de esta máquina no sirven: el cuello de botella es MariaDB
+        private int nucleosBaseDeDatos = 0;
+
+        // Tamaño del pool cuando no se conocen los núcleos de MariaDB (el fijo que había antes)
+        private int tamanoSinNucleos = 20;
+
+        // Conexiones de MariaDB disponibles para el servicio (max_connections menos las de administración)
+        private int conexionesBaseDeDatos = 140;
+
+        // Instancias del servicio que se reparten esas conexiones
+        private int replicas = 1;
+
+        private Adaptativo adaptativo = new Adaptativo();
+    }
+
+    @Getter
+    @Setter
+    public static class Adaptativo {
+
+        // Con false solo se mide e informa; con true además se ajusta el tamaño máximo del pool
+        private boolean habilitado = false;
+
+        // Cada cuánto se miden la saturación y la espera por conexión
+        private Duration intervalo = Duration.ofSeconds(1);
+
+        // Espera media por conexión a partir de la cual el pool crece
+        private Duration esperaObjetivo = Duration.ofMillis(5);
+
+        // Mediciones seguidas con el pool por debajo de la mitad de uso antes de quitar una conexión
+        private int intervalosParaReducir = 30;
+    }
+}
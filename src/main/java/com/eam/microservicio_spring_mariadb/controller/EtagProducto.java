@@ -0,0 +1,39 @@
+package com.eam.microservicio_spring_mariadb.controller;
+
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+
+// ETag fuerte de un producto: cambia con cada versión guardada
+final class EtagProducto {
+
+    private EtagProducto() {
+    }
+
+    static String de(ProductoVista producto) {
+        return de(producto.id(), producto.version());
+    }
+
+    static String de(Producto producto) {
+        return de(producto.getId(), producto.getVersion());
+    }
+
+    private static String de(Long id, Long version) {
+        return "\"p" + id + "v" + version + "\"";
+    }
+
+    static long ultimaModificacion(ProductoVista producto) {
+        return producto.actualizadoEn() == null ? -1 : producto.actualizadoEn().toEpochMilli();
+    }
+
+    // Evalúa un If-Match contra el producto actual: "*" o alguno de los ETag listados
+    static boolean coincide(String ifMatch, Producto producto) {
+        String actual = de(producto);
+        for (String etag : ifMatch.split(",")) {
+            String valor = etag.trim();
+            if (valor.equals("*") || valor.equals(actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
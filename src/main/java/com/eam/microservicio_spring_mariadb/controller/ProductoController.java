@@ -1,21 +1,61 @@
 package com.eam.microservicio_spring_mariadb.controller;
 
+import com.eam.microservicio_spring_mariadb.cache.VersionCatalogo;
+import com.eam.microservicio_spring_mariadb.dto.AjusteStock;
+import com.eam.microservicio_spring_mariadb.dto.FiltroProductos;
+import com.eam.microservicio_spring_mariadb.dto.PaginaProductos;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoEliminacion;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoLote;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoUpsert;
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
 import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.exception.PrecondicionFallidaException;
+import com.eam.microservicio_spring_mariadb.exception.StockInsuficienteException;
 import com.eam.microservicio_spring_mariadb.service.ProductoService;
+import com.eam.microservicio_spring_mariadb.stock.EscrituraDiferidaStock;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api/productos")
 public class ProductoController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // Cada cuántas filas exportadas se fuerza el envío de lo acumulado al cliente
+    private static final int FILAS_POR_FLUSH = 500;
+
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    // Solo existe con productos.stock.escritura-diferida.habilitada=true
+    @Autowired(required = false)
+    private EscrituraDiferidaStock escrituraDiferidaStock;
+
     @PostMapping("/crear")
     public ResponseEntity<?> crearProducto(@Valid @RequestBody Producto producto) {
         try {
@@ -23,7 +63,44 @@ public class ProductoController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("mensaje", "Producto creado exitosamente.");
-            response.put("producto", productoCreado);
+            response.put("producto", ProductoVista.de(productoCreado));
+
+            return ResponseEntity.ok().eTag(EtagProducto.de(productoCreado)).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/crear-lote")
+    public ResponseEntity<?> crearProductosLote(@RequestBody List<Producto> productos) {
+        try {
+            ResultadoLote resultado = productoService.crearProductosLote(productos);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("mensaje", "Lote procesado: " + resultado.creados() + " creados, "
+                    + resultado.rechazados() + " rechazados.");
+            response.put("total", resultado.total());
+            response.put("creados", resultado.creados());
+            response.put("rechazados", resultado.rechazados());
+            response.put("resultados", resultado.resultados());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/upsert-lote")
+    public ResponseEntity<?> upsertProductosLote(@RequestBody List<Producto> productos) {
+        try {
+            ResultadoUpsert resultado = productoService.upsertProductosLote(productos);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("mensaje", "Lote sincronizado: " + resultado.insertados() + " insertados, "
+                    + resultado.actualizados() + " actualizados.");
+            response.put("total", resultado.total());
+            response.put("insertados", resultado.insertados());
+            response.put("actualizados", resultado.actualizados());
 
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
@@ -32,49 +109,192 @@ public class ProductoController {
     }
 
     @GetMapping("/listar")
-    public ResponseEntity<?> listarProductos() {
+    public ResponseEntity<?> listarProductos(WebRequest request) {
+        // Si el catálogo no cambió desde la copia del cliente, 304 sin consultar la tabla
+        if (request.checkNotModified(versionCatalogo.etag(), versionCatalogo.ultimaModificacion())) {
+            return null;
+        }
+
         try {
-            List<Producto> productos = productoService.listarProductos();
+            List<ProductoVista> productos = productoService.listarProductos();
 
             Map<String, Object> response = new HashMap<>();
             response.put("mensaje", "Lista de productos obtenida correctamente.");
             response.put("productos", productos);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
         } catch (IllegalStateException e) {
             return ResponseEntity.status(404).body(e.getMessage());
         }
     }
 
+    @GetMapping("/listar-paginado")
+    public ResponseEntity<?> listarProductosPaginado(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer tamano) {
+        try {
+            PaginaProductos pagina = productoService.listarPagina(cursor, tamano);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("mensaje", "Página de productos obtenida correctamente.");
+            response.put("productos", pagina.productos());
+            response.put("siguienteCursor", pagina.siguienteCursor());
+            response.put("tamano", pagina.tamano());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Filtros por query string: nombre (prefijo), texto (palabras), precioMin, precioMax,
+    // cantidadMin y cantidadMax (p. ej. cantidadMax=5 para stock bajo); orden "campo,asc|desc"
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscarProductos(FiltroProductos filtro,
+                                             @RequestParam(required = false) String orden,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer tamano) {
+        try {
+            PaginaProductos pagina = productoService.buscarProductos(filtro, orden, cursor, tamano);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("mensaje", "Búsqueda de productos realizada correctamente.");
+            response.put("productos", pagina.productos());
+            response.put("siguienteCursor", pagina.siguienteCursor());
+            response.put("tamano", pagina.tamano());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/sugerencias")
+    public ResponseEntity<?> sugerirProductos(@RequestParam(required = false) String q,
+                                              @RequestParam(required = false) Integer limite) {
+        try {
+            List<Sugerencia> sugerencias = productoService.sugerirProductos(q, limite);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("mensaje", "Sugerencias obtenidas correctamente.");
+            response.put("sugerencias", sugerencias);
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            // Índice deshabilitado o todavía cargando
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarProductos() {
+        // Un objeto JSON por línea (NDJSON), escrito a medida que se lee cada fila
+        ObjectWriter escritor = objectMapper.writerFor(ProductoVista.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                // El separador lo pone cada línea, no Jackson (por defecto inserta un espacio)
+                generador.setRootValueSeparator(null);
+                long[] escritas = {0};
+                productoService.exportarProductos(producto -> {
+                    try {
+                        escritor.writeValue(generador, producto);
+                        generador.writeRaw('\n');
+                        if (++escritas[0] == 1 || escritas[0] % FILAS_POR_FLUSH == 0) {
+                            generador.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+
     @GetMapping("/obtener/{codigo}")
-    public ResponseEntity<?> obtenerProducto(@PathVariable String codigo) {
+    public ResponseEntity<?> obtenerProducto(@PathVariable String codigo, WebRequest request) {
         try {
-            Producto producto = productoService.obtenerPorCodigo(codigo);
+            ProductoVista producto = productoService.obtenerPorCodigo(codigo);
+
+            // If-None-Match / If-Modified-Since: 304 sin serializar el producto
+            if (request.checkNotModified(EtagProducto.de(producto), EtagProducto.ultimaModificacion(producto))) {
+                return null;
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("mensaje", "Producto obtenido exitosamente.");
             response.put("producto", producto);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(404).body(e.getMessage());
         }
     }
 
     @PutMapping("/actualizar/{codigo}")
-    public ResponseEntity<?> actualizarProducto(@PathVariable String codigo, @Valid @RequestBody Producto producto) {
+    public ResponseEntity<?> actualizarProducto(@PathVariable String codigo, @Valid @RequestBody Producto producto,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                @RequestParam(defaultValue = "false") boolean reintentar) {
         try {
-            Producto productoActualizado = productoService.actualizarProducto(codigo, producto);
+            Producto productoActualizado;
+            if (ifMatch != null) {
+                if (reintentar) {
+                    throw new IllegalArgumentException("No se puede reintentar una actualización condicionada con If-Match");
+                }
+                // Solo se actualiza si el cliente partió de la versión vigente
+                productoActualizado = productoService.actualizarProducto(codigo, producto,
+                        actual -> EtagProducto.coincide(ifMatch, actual));
+            } else if (reintentar) {
+                productoActualizado = productoService.actualizarConReintento(codigo, producto);
+            } else {
+                productoActualizado = productoService.actualizarProducto(codigo, producto);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("mensaje", "Producto actualizado exitosamente.");
-            response.put("producto", productoActualizado);
+            response.put("producto", ProductoVista.de(productoActualizado));
+
+            return ResponseEntity.ok().eTag(EtagProducto.de(productoActualizado)).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(404).body(e.getMessage());
+        } catch (PrecondicionFallidaException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("El producto fue modificado al mismo tiempo por otra petición, intente de nuevo");
+        }
+    }
+
+    @PatchMapping("/{codigo}/stock")
+    public ResponseEntity<?> ajustarStock(@PathVariable String codigo, @RequestBody AjusteStock ajuste) {
+        try {
+            if (ajuste.delta() == null) {
+                throw new IllegalArgumentException("El ajuste de stock debe indicar el delta");
+            }
+            int cantidad = escrituraDiferidaStock != null
+                    ? escrituraDiferidaStock.ajustar(codigo, ajuste.delta())
+                    : productoService.ajustarStock(codigo, ajuste.delta());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("mensaje", "Stock ajustado exitosamente.");
+            response.put("codigo", codigo);
+            response.put("cantidad", cantidad);
 
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(404).body(e.getMessage());
+        } catch (StockInsuficienteException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         }
     }
 
@@ -92,4 +312,21 @@ public class ProductoController {
             return ResponseEntity.status(404).body(e.getMessage());
         }
     }
+
+    @DeleteMapping("/eliminar-lote")
+    public ResponseEntity<?> eliminarProductosLote(@RequestBody List<String> codigos) {
+        try {
+            ResultadoEliminacion resultado = productoService.eliminarProductosLote(codigos);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("mensaje", "Lote eliminado: " + resultado.eliminados() + " de "
+                    + resultado.solicitados() + " productos.");
+            response.put("solicitados", resultado.solicitados());
+            response.put("eliminados", resultado.eliminados());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,5 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+// Cuerpo de PATCH /{codigo}/stock: unidades a sumar (positivo) o retirar (negativo)
+public record AjusteStock(Integer delta) {
+}
@@ -0,0 +1,9 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+// Filtros de la búsqueda de productos; los nulos o vacíos no filtran.
+// nombre es un prefijo; texto son palabras que deben aparecer en el nombre (índice FULLTEXT)
+public record FiltroProductos(String nombre, String texto, Double precioMin, Double precioMax,
+                              Integer cantidadMin, Integer cantidadMax) {
+
+    public static final FiltroProductos NINGUNO = new FiltroProductos(null, null, null, null, null, null);
+}
@@ -0,0 +1,9 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+
+import java.util.List;
+
+// Página de productos con el cursor opaco para pedir la siguiente (null si no hay más)
+public record PaginaProductos(List<ProductoVista> productos, String siguienteCursor, int tamano) {
+}
@@ -0,0 +1,17 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+
+import java.time.Instant;
+
+// Vista de solo lectura de un producto: es lo que devuelven las consultas y la API.
+// Se construye directamente desde la consulta (SELECT new ...), sin entidad gestionada ni
+// copia para dirty checking, y es inmutable, así que puede compartirse desde la caché.
+public record ProductoVista(Long id, String codigo, String nombre, Double precio, Integer cantidad,
+                            Long version, Instant actualizadoEn) {
+
+    public static ProductoVista de(Producto producto) {
+        return new ProductoVista(producto.getId(), producto.getCodigo(), producto.getNombre(),
+                producto.getPrecio(), producto.getCantidad(), producto.getVersion(), producto.getActualizadoEn());
+    }
+}
@@ -0,0 +1,5 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+// Resumen de una eliminación por lote: códigos distintos pedidos y filas realmente borradas
+public record ResultadoEliminacion(int solicitados, int eliminados) {
+}
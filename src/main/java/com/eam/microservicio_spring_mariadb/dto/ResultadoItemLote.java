@@ -0,0 +1,18 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+// Resultado de un producto dentro de una operación por lote (indice = posición en la petición)
+public record ResultadoItemLote(int indice, String codigo, Estado estado, String mensaje) {
+
+    public enum Estado {
+        CREADO,
+        RECHAZADO
+    }
+
+    public static ResultadoItemLote creado(int indice, String codigo) {
+        return new ResultadoItemLote(indice, codigo, Estado.CREADO, "Producto creado exitosamente.");
+    }
+
+    public static ResultadoItemLote rechazado(int indice, String codigo, String mensaje) {
+        return new ResultadoItemLote(indice, codigo, Estado.RECHAZADO, mensaje);
+    }
+}
@@ -0,0 +1,7 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+import java.util.List;
+
+// Resumen de una creación por lote con el detalle de cada producto enviado
+public record ResultadoLote(int total, int creados, int rechazados, List<ResultadoItemLote> resultados) {
+}
@@ -0,0 +1,5 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+// Resumen de un upsert por lote: cuántos códigos eran nuevos y cuántos ya existían
+public record ResultadoUpsert(int total, int insertados, int actualizados) {
+}
@@ -0,0 +1,5 @@
+package com.eam.microservicio_spring_mariadb.dto;
+
+// Resultado de la búsqueda en memoria: producto y su puntuación (mayor = más relevante)
+public record Sugerencia(String codigo, String nombre, double puntuacion) {
+}
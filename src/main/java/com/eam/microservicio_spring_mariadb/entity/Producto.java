@@ -7,10 +7,19 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
+// El esquema lo crean las migraciones V1 y V2 (también el FULLTEXT de nombre, que JPA no sabe declarar);
+// los nombres de aquí deben coincidir con los de la base, MigracionesIT lo comprueba
 @Table(name = "productos", uniqueConstraints = {
-        @UniqueConstraint(columnNames = "codigo")
+        @UniqueConstraint(name = "uk_productos_codigo", columnNames = "codigo")
+}, indexes = {
+        @Index(name = "idx_productos_nombre", columnList = "nombre"),
+        @Index(name = "idx_productos_precio", columnList = "precio"),
+        @Index(name = "idx_productos_cantidad", columnList = "cantidad")
 })
 @Getter
 @Setter
@@ -40,6 +49,16 @@ public class Producto {
     @Column(nullable = false)
     private Integer cantidad;
 
+    // Se incrementa en cada escritura; sirve para el ETag y el control de concurrencia optimista
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Fecha de la última escritura (UTC), usada como Last-Modified
+    @UpdateTimestamp
+    @Column(name = "actualizado_en")
+    private Instant actualizadoEn;
+
     // 🔽 Constructor vacío (ya lo agrega Lombok, pero puedes incluirlo explícitamente si quieres)
     public Producto() {
     }
@@ -0,0 +1,9 @@
+package com.eam.microservicio_spring_mariadb.exception;
+
+// El producto ya no está en la versión que el cliente esperaba (If-Match no coincide)
+public class PrecondicionFallidaException extends RuntimeException {
+
+    public PrecondicionFallidaException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,9 @@
+package com.eam.microservicio_spring_mariadb.exception;
+
+// El ajuste de stock dejaría la cantidad del producto por debajo de cero
+public class StockInsuficienteException extends RuntimeException {
+
+    public StockInsuficienteException(String mensaje) {
+        super(mensaje);
+    }
+}
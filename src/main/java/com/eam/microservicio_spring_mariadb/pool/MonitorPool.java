@@ -0,0 +1,175 @@
+package com.eam.microservicio_spring_mariadb.pool;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Mide cada intervalo la saturación del pool (conexiones en uso / tamaño máximo) y la espera media
+// por conexión en ese intervalo, a partir del timer hikaricp.connections.acquire que ya publica Hikari.
+// En modo adaptativo además ajusta el tamaño máximo: crece en cuanto la espera supera el objetivo,
+// hasta el tope de la réplica, y vuelve de una en una hacia el tamaño base cuando el pool queda holgado.
+@Component
+public class MonitorPool implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorPool.class);
+
+    // Sin modo adaptativo, un aviso de saturación como mucho cada este tiempo
+    private static final long INTERVALO_AVISOS_MS = 60_000;
+
+    private final DataSource dataSource;
+
+    private final ProductoProperties.Pool configuracion;
+
+    private final ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "pool-monitor");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private HikariDataSource hikari;
+
+    private MeterRegistry registro;
+
+    private int tamanoBase;
+
+    private int tope;
+
+    private volatile double saturacion;
+
+    private volatile double esperaMediaMs;
+
+    // Acumulados del timer en la medición anterior, para sacar la espera del último intervalo
+    private long adquisicionesPrevias;
+
+    private double tiempoEsperaPrevioMs;
+
+    private int intervalosHolgados;
+
+    private long ultimoAviso;
+
+    public MonitorPool(DataSource dataSource, ProductoProperties propiedades) {
+        this.dataSource = dataSource;
+        this.configuracion = propiedades.getPool();
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        try {
+            hikari = dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            log.warn("El DataSource no es un pool Hikari; no se mide el pool de conexiones");
+            return;
+        }
+        tamanoBase = hikari.getMaximumPoolSize();
+        tope = Math.max(tamanoBase, PoolConexionesConfig.tope(configuracion));
+
+        long intervalo = configuracion.getAdaptativo().getIntervalo().toMillis();
+        planificador.scheduleWithFixedDelay(this::muestrear, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        planificador.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registro = registry;
+        Gauge.builder("productos.pool.saturacion", this, monitor -> monitor.saturacion)
+                .description("Conexiones en uso sobre el tamaño máximo del pool en la última medición")
+                .register(registry);
+        Gauge.builder("productos.pool.espera", this, monitor -> monitor.esperaMediaMs)
+                .description("Espera media por una conexión del pool en el último intervalo")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("productos.pool.tamano", this,
+                        monitor -> monitor.hikari == null ? 0 : monitor.hikari.getMaximumPoolSize())
+                .description("Tamaño máximo actual del pool; en modo adaptativo varía entre el base y el tope")
+                .register(registry);
+    }
+
+    void muestrear() {
+        try {
+            // Hikari crea el pool con la primera conexión; hasta entonces no hay nada que medir
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                return;
+            }
+            int maximo = hikari.getMaximumPoolSize();
+            int activas = pool.getActiveConnections();
+            int esperando = pool.getThreadsAwaitingConnection();
+            saturacion = (double) activas / maximo;
+            esperaMediaMs = esperaDelIntervalo();
+
+            double objetivoMs = configuracion.getAdaptativo().getEsperaObjetivo().toMillis();
+            if (!configuracion.getAdaptativo().isHabilitado()) {
+                avisarSiSaturado(activas, maximo, esperando, objetivoMs);
+                return;
+            }
+            int nuevo = siguienteTamano(maximo, esperando, objetivoMs);
+            if (nuevo != maximo) {
+                hikari.setMaximumPoolSize(nuevo);
+                log.info("Pool de conexiones de {} a {} (uso {}%, espera media {} ms, {} hilos esperando)",
+                        maximo, nuevo, Math.round(saturacion * 100), Math.round(esperaMediaMs), esperando);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error al medir el pool de conexiones: {}", e.getMessage());
+        }
+    }
+
+    private int siguienteTamano(int actual, int esperando, double objetivoMs) {
+        if (esperaMediaMs > objetivoMs && actual < tope) {
+            intervalosHolgados = 0;
+            return Math.min(tope, actual + Math.max(1, actual / 4));
+        }
+        if (saturacion < 0.5 && esperando == 0) {
+            intervalosHolgados++;
+        } else {
+            intervalosHolgados = 0;
+        }
+        if (intervalosHolgados >= configuracion.getAdaptativo().getIntervalosParaReducir() && actual > tamanoBase) {
+            intervalosHolgados = 0;
+            return actual - 1;
+        }
+        return actual;
+    }
+
+    private double esperaDelIntervalo() {
+        Timer adquisicion = registro == null ? null
+                : registro.find("hikaricp.connections.acquire").tag("pool", hikari.getPoolName()).timer();
+        if (adquisicion == null) {
+            return 0;
+        }
+        long adquisiciones = adquisicion.count();
+        double tiempoEsperaMs = adquisicion.totalTime(TimeUnit.MILLISECONDS);
+        long nuevas = adquisiciones - adquisicionesPrevias;
+        double media = nuevas > 0 ? (tiempoEsperaMs - tiempoEsperaPrevioMs) / nuevas : 0;
+        adquisicionesPrevias = adquisiciones;
+        tiempoEsperaPrevioMs = tiempoEsperaMs;
+        return media;
+    }
+
+    private void avisarSiSaturado(int activas, int maximo, int esperando, double objetivoMs) {
+        long ahora = System.currentTimeMillis();
+        if (esperaMediaMs > objetivoMs && ahora - ultimoAviso >= INTERVALO_AVISOS_MS) {
+            ultimoAviso = ahora;
+            log.warn("Pool de conexiones saturado: {} de {} en uso, espera media {} ms, {} hilos esperando",
+                    activas, maximo, Math.round(esperaMediaMs), esperando);
+        }
+    }
+}
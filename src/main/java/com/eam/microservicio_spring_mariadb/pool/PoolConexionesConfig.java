@@ -0,0 +1,53 @@
+package com.eam.microservicio_spring_mariadb.pool;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Tamaño del pool Hikari cuando spring.datasource.hikari.maximum-pool-size no está fijado.
+// Con los núcleos de MariaDB conocidos parte de la fórmula de HikariCP, núcleos * 2 + 1 (un disco
+// efectivo); si no, usa tamanoSinNucleos. Nunca pasa de la parte de conexiones de MariaDB que le
+// toca a esta réplica. minimum-idle se iguala al tamaño: el pool es fijo salvo que MonitorPool lo
+// haga crecer en modo adaptativo.
+@Configuration
+public class PoolConexionesConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolConexionesConfig.class);
+
+    // static y con ObjectProvider, igual que el proxy del DataSource; se aplica después de que
+    // Spring enlace spring.datasource.hikari.* y antes de que el pool arranque
+    @Bean
+    public static BeanPostProcessor tamanoPoolConexiones(ObjectProvider<ProductoProperties> propiedades) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // Hikari deja -1 en lo que no se configuró
+                if (bean instanceof HikariDataSource hikari && hikari.getMaximumPoolSize() < 1) {
+                    ProductoProperties.Pool pool = propiedades.getObject().getPool();
+                    int tamano = tamanoBase(pool);
+                    hikari.setMaximumPoolSize(tamano);
+                    if (hikari.getMinimumIdle() < 0) {
+                        hikari.setMinimumIdle(tamano);
+                    }
+                    log.info("Pool de conexiones con {} conexiones (tope de esta réplica: {})", tamano, tope(pool));
+                }
+                return bean;
+            }
+        };
+    }
+
+    static int tamanoBase(ProductoProperties.Pool pool) {
+        int tamano = pool.getNucleosBaseDeDatos() > 0 ? pool.getNucleosBaseDeDatos() * 2 + 1 : pool.getTamanoSinNucleos();
+        return Math.min(tamano, tope(pool));
+    }
+
+    // Conexiones de MariaDB que corresponden a esta réplica: el pool no crece por encima
+    static int tope(ProductoProperties.Pool pool) {
+        return Math.max(1, pool.getConexionesBaseDeDatos() / Math.max(1, pool.getReplicas()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.eam.microservicio_spring_mariadb.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.type.StandardBasicTypes;
+
+// Registra en Hibernate la función coincide_texto(columna, consulta), que las Specification usan
+// para la búsqueda por palabras. En MariaDB es MATCH ... AGAINST en modo booleano sobre el índice
+// FULLTEXT; en otros motores (H2 en benchmarks y pruebas de carga) se aproxima con una subcadena.
+// Se carga por ServiceLoader (META-INF/services/org.hibernate.boot.model.FunctionContributor)
+public class FuncionesBusqueda implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions funciones) {
+        String patron = funciones.getDialect() instanceof MySQLDialect
+                ? "match(?1) against(?2 in boolean mode)"
+                : "case when locate(lower(replace(replace(?2, '+', ''), '*', '')), lower(?1)) > 0 then 1.0 else 0.0 end";
+
+        funciones.getFunctionRegistry()
+                .patternDescriptorBuilder(ProductoEspecificaciones.COINCIDE_TEXTO, patron)
+                .setExactArgumentCount(2)
+                .setInvariantType(funciones.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.DOUBLE))
+                .register();
+    }
+}
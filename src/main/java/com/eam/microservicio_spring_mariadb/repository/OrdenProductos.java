@@ -0,0 +1,79 @@
+package com.eam.microservicio_spring_mariadb.repository;
+
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+// Orden de una búsqueda: un campo indexado y la dirección. El id desempata siempre en la misma
+// dirección, así que (campo, id) identifica cada fila y sirve de clave para la paginación por keyset.
+public record OrdenProductos(Campo campo, boolean descendente) {
+
+    public static final OrdenProductos POR_DEFECTO = new OrdenProductos(Campo.ID, false);
+
+    // Formato "campo" o "campo,asc|desc", p. ej. "precio,desc"
+    public static OrdenProductos de(String orden) {
+        if (orden == null || orden.isBlank()) {
+            return POR_DEFECTO;
+        }
+        String[] partes = orden.split(",", -1);
+        if (partes.length > 2) {
+            throw new IllegalArgumentException("El orden de búsqueda no es válido: " + orden);
+        }
+
+        Campo campo = Campo.de(partes[0].trim());
+        String direccion = partes.length == 2 ? partes[1].trim().toLowerCase(Locale.ROOT) : "asc";
+        if (campo == null || !(direccion.equals("asc") || direccion.equals("desc"))) {
+            throw new IllegalArgumentException("El orden de búsqueda no es válido: " + orden);
+        }
+        return new OrdenProductos(campo, direccion.equals("desc"));
+    }
+
+    @Override
+    public String toString() {
+        return campo.atributo + (descendente ? ",desc" : ",asc");
+    }
+
+    public enum Campo {
+        ID("id", ProductoVista::id, Long::valueOf),
+        NOMBRE("nombre", ProductoVista::nombre, Function.identity()),
+        PRECIO("precio", ProductoVista::precio, Double::valueOf),
+        CANTIDAD("cantidad", ProductoVista::cantidad, Integer::valueOf);
+
+        private final String atributo;
+
+        private final Function<ProductoVista, Object> lector;
+
+        private final Function<String, Object> conversor;
+
+        Campo(String atributo, Function<ProductoVista, ?> lector, Function<String, ?> conversor) {
+            this.atributo = atributo;
+            this.lector = lector::apply;
+            this.conversor = conversor::apply;
+        }
+
+        // Nombre del atributo de Producto
+        public String atributo() {
+            return atributo;
+        }
+
+        // Valor del campo en una fila ya leída (para construir el cursor)
+        public Object valor(ProductoVista producto) {
+            return lector.apply(producto);
+        }
+
+        // Valor del campo a partir de su forma textual en el cursor
+        public Object convertir(String texto) {
+            return conversor.apply(texto);
+        }
+
+        private static Campo de(String atributo) {
+            for (Campo campo : values()) {
+                if (campo.atributo.equalsIgnoreCase(atributo)) {
+                    return campo;
+                }
+            }
+            return null;
+        }
+    }
+}
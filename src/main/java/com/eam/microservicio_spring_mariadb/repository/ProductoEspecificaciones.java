@@ -0,0 +1,92 @@
+package com.eam.microservicio_spring_mariadb.repository;
+
+import com.eam.microservicio_spring_mariadb.dto.FiltroProductos;
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Condiciones de la búsqueda de productos como Specification. Cada una se apoya en un índice de
+// la migración V2: prefijo y palabras de nombre, rango de precio y umbrales de cantidad.
+public final class ProductoEspecificaciones {
+
+    // Función SQL registrada por FuncionesBusqueda: relevancia de MATCH ... AGAINST en MariaDB
+    static final String COINCIDE_TEXTO = "coincide_texto";
+
+    // innodb_ft_min_token_size: las palabras más cortas no están en el índice FULLTEXT
+    private static final int LONGITUD_MINIMA_PALABRA = 3;
+
+    private ProductoEspecificaciones() {
+    }
+
+    public static Specification<Producto> de(FiltroProductos filtro) {
+        List<Specification<Producto>> condiciones = new ArrayList<>();
+        if (filtro.nombre() != null && !filtro.nombre().isBlank()) {
+            condiciones.add(nombreEmpiezaPor(filtro.nombre().strip()));
+        }
+        if (filtro.texto() != null && !filtro.texto().isBlank()) {
+            condiciones.add(nombreContiene(palabras(filtro.texto())));
+        }
+        if (filtro.precioMin() != null) {
+            condiciones.add((producto, consulta, cb) -> cb.greaterThanOrEqualTo(producto.get("precio"), filtro.precioMin()));
+        }
+        if (filtro.precioMax() != null) {
+            condiciones.add((producto, consulta, cb) -> cb.lessThanOrEqualTo(producto.get("precio"), filtro.precioMax()));
+        }
+        if (filtro.cantidadMin() != null) {
+            condiciones.add((producto, consulta, cb) -> cb.greaterThanOrEqualTo(producto.get("cantidad"), filtro.cantidadMin()));
+        }
+        if (filtro.cantidadMax() != null) {
+            condiciones.add((producto, consulta, cb) -> cb.lessThanOrEqualTo(producto.get("cantidad"), filtro.cantidadMax()));
+        }
+        return Specification.allOf(condiciones);
+    }
+
+    // LIKE 'prefijo%' sin funciones sobre la columna, para que use idx_productos_nombre.
+    // La collation de la tabla ya compara sin distinguir mayúsculas
+    public static Specification<Producto> nombreEmpiezaPor(String prefijo) {
+        String patron = prefijo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (producto, consulta, cb) -> cb.like(producto.get("nombre"), patron, '\\');
+    }
+
+    // Todas las palabras deben aparecer en el nombre, también como prefijo de una palabra ("cami" encuentra "Camisa")
+    public static Specification<Producto> nombreContiene(List<String> palabras) {
+        return (producto, consulta, cb) -> cb.and(palabras.stream()
+                .map(palabra -> cb.greaterThan(cb.function(COINCIDE_TEXTO, Double.class,
+                        producto.get("nombre"), cb.literal("+" + palabra + "*")), 0.0))
+                .toArray(Predicate[]::new));
+    }
+
+    // Filas posteriores a (valor, id) en el orden dado. Se escribe como
+    // campo >= valor AND (campo > valor OR id > ultimoId) para que el índice del campo acote el rango
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Specification<Producto> despuesDe(OrdenProductos orden, Object valor, long ultimoId) {
+        return (producto, consulta, cb) -> {
+            Path<Long> id = producto.get("id");
+            if (orden.campo() == OrdenProductos.Campo.ID) {
+                return orden.descendente() ? cb.lessThan(id, ultimoId) : cb.greaterThan(id, ultimoId);
+            }
+
+            Path<Comparable> campo = producto.get(orden.campo().atributo());
+            Comparable ultimo = (Comparable) valor;
+            if (orden.descendente()) {
+                return cb.and(cb.lessThanOrEqualTo(campo, ultimo),
+                        cb.or(cb.lessThan(campo, ultimo), cb.lessThan(id, ultimoId)));
+            }
+            return cb.and(cb.greaterThanOrEqualTo(campo, ultimo),
+                    cb.or(cb.greaterThan(campo, ultimo), cb.greaterThan(id, ultimoId)));
+        };
+    }
+
+    // Palabras indexables del texto: letras y dígitos, sin operadores del modo booleano de FULLTEXT
+    public static List<String> palabras(String texto) {
+        return Arrays.stream(texto.split("[^\\p{L}\\p{N}]+"))
+                .filter(palabra -> palabra.length() >= LONGITUD_MINIMA_PALABRA)
+                .distinct()
+                .toList();
+    }
+}
@@ -1,20 +1,87 @@
 package com.eam.microservicio_spring_mariadb.repository;
 
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
 import com.eam.microservicio_spring_mariadb.entity.Producto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
+
+    // Filas que el driver trae por viaje al recorrer el catálogo completo
+    String TAMANO_FETCH_EXPORTACION = "1000";
 
     // Verifica si ya existe un producto con un código específico
     boolean existsByCodigo(String codigo);
 
+    // Devuelve cuáles de los códigos dados ya existen (una sola consulta IN)
+    @Query("SELECT p.codigo FROM Producto p WHERE p.codigo IN :codigos")
+    List<String> findCodigosExistentes(@Param("codigos") Collection<String> codigos);
+
     // Busca un producto por su código único
     Optional<Producto> findByCodigo(String codigo);
 
-    // Elimina un producto por su código
-    void deleteByCodigo(String codigo);
+    // Suma delta al stock en una sola sentencia; si el resultado quedaría negativo no toca la fila.
+    // Devuelve las filas modificadas (0 = no existe o no hay stock suficiente)
+    @Modifying
+    @Query("UPDATE Producto p SET p.cantidad = p.cantidad + :delta, p.version = p.version + 1, "
+            + "p.actualizadoEn = :ahora WHERE p.codigo = :codigo AND p.cantidad + :delta >= 0")
+    int ajustarCantidad(@Param("codigo") String codigo, @Param("delta") int delta, @Param("ahora") Instant ahora);
+
+    // Lee solo la cantidad, sin cargar la entidad
+    @Query("SELECT p.cantidad FROM Producto p WHERE p.codigo = :codigo")
+    Optional<Integer> findCantidadByCodigo(@Param("codigo") String codigo);
+
+    // Elimina un producto por su código con un único DELETE, sin cargar la entidad.
+    // Devuelve las filas borradas (0 = no existía)
+    @Modifying
+    @Query("DELETE FROM Producto p WHERE p.codigo = :codigo")
+    int deleteByCodigo(@Param("codigo") String codigo);
+
+    // Elimina varios productos con un único DELETE ... WHERE codigo IN (...); devuelve las filas borradas
+    @Modifying
+    @Query("DELETE FROM Producto p WHERE p.codigo IN :codigos")
+    int deleteByCodigoIn(@Param("codigos") Collection<String> codigos);
+
+    // Las consultas de lectura construyen ProductoVista directamente (SELECT new ...): Hibernate
+    // no gestiona entidades ni guarda su copia para dirty checking, y el flush no tiene nada que revisar
+    String SELECT_VISTA = "SELECT new com.eam.microservicio_spring_mariadb.dto.ProductoVista("
+            + "p.id, p.codigo, p.nombre, p.precio, p.cantidad, p.version, p.actualizadoEn) FROM Producto p ";
+
+    // Vista de un producto por su código único
+    @Query(SELECT_VISTA + "WHERE p.codigo = :codigo")
+    Optional<ProductoVista> findVistaByCodigo(@Param("codigo") String codigo);
+
+    // Vistas de varios códigos con una sola consulta IN; los que no existen no aparecen
+    @Query(SELECT_VISTA + "WHERE p.codigo IN :codigos")
+    List<ProductoVista> findVistasByCodigoIn(@Param("codigos") Collection<String> codigos);
+
+    // Vista de todo el catálogo, en orden de id
+    @Query(SELECT_VISTA + "ORDER BY p.id")
+    List<ProductoVista> findVistas();
+
+    // Página siguiente por keyset: usa el índice de la PK en lugar de OFFSET
+    @Query(SELECT_VISTA + "WHERE p.id > :id ORDER BY p.id")
+    List<ProductoVista> findVistasDespuesDe(@Param("id") Long id, Limit limit);
+
+    // Recorre todo el catálogo con un cursor forward-only (debe consumirse dentro de una transacción)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAMANO_FETCH_EXPORTACION),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_VISTA + "ORDER BY p.id")
+    Stream<ProductoVista> streamVistas();
 }
@@ -0,0 +1,34 @@
+package com.eam.microservicio_spring_mariadb.repository;
+
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Operaciones masivas que se resuelven con JDBC directo en lugar de entidades administradas,
+// y la búsqueda dinámica con Criteria que devuelve vistas
+public interface ProductoRepositoryCustom {
+
+    // Inserta los productos con JDBC batch: una sentencia preparada, varias filas por envío
+    void insertarLote(List<Producto> productos);
+
+    // Inserta o actualiza por código con INSERT ... ON DUPLICATE KEY UPDATE, una sentencia
+    // multi-fila por bloque. Devuelve la suma de filas afectadas que informa MariaDB
+    // (1 por fila insertada, 2 por fila existente, ya que su versión siempre se incrementa)
+    long upsertLote(List<Producto> productos);
+
+    // Suma a la cantidad de cada código su delta acumulado, en un solo envío batch. Las retiradas
+    // que dejarían el stock por debajo de cero no se aplican y se devuelven sus códigos. Debe
+    // llamarse dentro de una transacción: bloquea las filas que lee para comprobarlo
+    Set<String> ajustarCantidades(Map<String, Long> deltas);
+
+    // Cantidad actual de cada código; los que no existen no aparecen en el resultado
+    Map<String, Integer> leerCantidades(Collection<String> codigos);
+
+    // Vistas que cumplen el filtro, en el orden dado (con el id como desempate) y como mucho limite filas
+    List<ProductoVista> buscarVistas(Specification<Producto> filtro, OrdenProductos orden, int limite);
+}
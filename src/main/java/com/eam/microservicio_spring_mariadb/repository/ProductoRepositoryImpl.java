@@ -0,0 +1,193 @@
+package com.eam.microservicio_spring_mariadb.repository;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Implementación del fragmento ProductoRepositoryCustom (Spring Data la detecta por el sufijo Impl)
+public class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+    private static final String INSERTAR_PRODUCTO =
+            "INSERT INTO productos (codigo, nombre, precio, cantidad, version, actualizado_en) VALUES (?, ?, ?, ?, 0, ?)";
+
+    private static final String UPSERT_PRODUCTOS =
+            "INSERT INTO productos (codigo, nombre, precio, cantidad, version, actualizado_en) VALUES ";
+
+    // La versión siempre cambia, así que MariaDB informa 2 filas afectadas por cada
+    // producto existente aunque sus datos no varíen
+    private static final String UPSERT_ACTUALIZAR = " ON DUPLICATE KEY UPDATE nombre = VALUES(nombre),"
+            + " precio = VALUES(precio), cantidad = VALUES(cantidad),"
+            + " version = version + 1, actualizado_en = VALUES(actualizado_en)";
+
+    // La guarda repite en la base el control de ajustarCantidades: una retirada nunca deja el stock
+    // por debajo de cero, aunque otra instancia haya vendido lo mismo
+    private static final String AJUSTAR_CANTIDAD = "UPDATE productos SET cantidad = cantidad + ?, version = version + 1,"
+            + " actualizado_en = ? WHERE codigo = ? AND (cantidad + ? >= 0 OR ? > 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductoProperties propiedades;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertarLote(List<Producto> productos) {
+        LocalDateTime ahora = ahoraUtc();
+
+        // Con IDENTITY Hibernate no puede agrupar inserts; el driver de MariaDB sí envía
+        // el batch JDBC como una sola operación masiva por cada bloque
+        jdbcTemplate.batchUpdate(INSERTAR_PRODUCTO, productos, propiedades.getLote().getTamanoEnvio(),
+                (sentencia, producto) -> {
+                    sentencia.setString(1, producto.getCodigo());
+                    sentencia.setString(2, producto.getNombre());
+                    sentencia.setDouble(3, producto.getPrecio());
+                    sentencia.setInt(4, producto.getCantidad());
+                    sentencia.setObject(5, ahora);
+                });
+    }
+
+    @Override
+    public long upsertLote(List<Producto> productos) {
+        int tamanoEnvio = propiedades.getLote().getTamanoEnvio();
+        LocalDateTime ahora = ahoraUtc();
+        long filasAfectadas = 0;
+
+        for (int desde = 0; desde < productos.size(); desde += tamanoEnvio) {
+            List<Producto> bloque = productos.subList(desde, Math.min(desde + tamanoEnvio, productos.size()));
+
+            List<Object> parametros = new ArrayList<>(bloque.size() * 5);
+            for (Producto producto : bloque) {
+                parametros.add(producto.getCodigo());
+                parametros.add(producto.getNombre());
+                parametros.add(producto.getPrecio());
+                parametros.add(producto.getCantidad());
+                parametros.add(ahora);
+            }
+            filasAfectadas += jdbcTemplate.update(sentenciaUpsert(bloque.size()), parametros.toArray());
+        }
+        return filasAfectadas;
+    }
+
+    @Override
+    public Set<String> ajustarCantidades(Map<String, Long> deltas) {
+        LocalDateTime ahora = ahoraUtc();
+
+        // Las filas con retiradas quedan bloqueadas hasta el commit: lo leído aquí es lo que verá el UPDATE
+        List<String> retiradas = deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() < 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<String, Integer> actuales = retiradas.isEmpty() ? Map.of() : leerCantidades(retiradas, " FOR UPDATE");
+
+        Set<String> rechazados = new HashSet<>();
+        List<Map.Entry<String, Long>> aplicables = new ArrayList<>(deltas.size());
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            Integer actual = actuales.get(delta.getKey());
+            if (actual != null && actual + delta.getValue() < 0) {
+                rechazados.add(delta.getKey());
+            } else {
+                aplicables.add(delta);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(AJUSTAR_CANTIDAD, aplicables, propiedades.getLote().getTamanoEnvio(),
+                (sentencia, delta) -> {
+                    sentencia.setLong(1, delta.getValue());
+                    sentencia.setObject(2, ahora);
+                    sentencia.setString(3, delta.getKey());
+                    sentencia.setLong(4, delta.getValue());
+                    sentencia.setLong(5, delta.getValue());
+                });
+        return rechazados;
+    }
+
+    @Override
+    public Map<String, Integer> leerCantidades(Collection<String> codigos) {
+        return leerCantidades(codigos, "");
+    }
+
+    private Map<String, Integer> leerCantidades(Collection<String> codigos, String bloqueo) {
+        int tamanoEnvio = propiedades.getLote().getTamanoEnvio();
+        List<String> lista = new ArrayList<>(codigos);
+        Map<String, Integer> cantidades = new HashMap<>();
+
+        for (int desde = 0; desde < lista.size(); desde += tamanoEnvio) {
+            List<String> bloque = lista.subList(desde, Math.min(desde + tamanoEnvio, lista.size()));
+            String sql = "SELECT codigo, cantidad FROM productos WHERE codigo IN ("
+                    + String.join(", ", Collections.nCopies(bloque.size(), "?")) + ")" + bloqueo;
+            jdbcTemplate.query(sql, fila -> {
+                cantidades.put(fila.getString("codigo"), fila.getInt("cantidad"));
+            }, bloque.toArray());
+        }
+        return cantidades;
+    }
+
+    @Override
+    public List<ProductoVista> buscarVistas(Specification<Producto> filtro, OrdenProductos orden, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoVista> consulta = cb.createQuery(ProductoVista.class);
+        Root<Producto> producto = consulta.from(Producto.class);
+
+        // Igual que las consultas SELECT new del repositorio: filas a vistas, sin entidades gestionadas
+        consulta.select(cb.construct(ProductoVista.class, producto.get("id"), producto.get("codigo"),
+                producto.get("nombre"), producto.get("precio"), producto.get("cantidad"),
+                producto.get("version"), producto.get("actualizadoEn")));
+
+        Predicate condicion = filtro.toPredicate(producto, consulta, cb);
+        if (condicion != null) {
+            consulta.where(condicion);
+        }
+
+        List<Order> criterios = new ArrayList<>(2);
+        if (orden.campo() != OrdenProductos.Campo.ID) {
+            Path<?> campo = producto.get(orden.campo().atributo());
+            criterios.add(orden.descendente() ? cb.desc(campo) : cb.asc(campo));
+        }
+        criterios.add(orden.descendente() ? cb.desc(producto.get("id")) : cb.asc(producto.get("id")));
+        consulta.orderBy(criterios);
+
+        return entityManager.createQuery(consulta)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    private static String sentenciaUpsert(int filas) {
+        StringBuilder sql = new StringBuilder(UPSERT_PRODUCTOS.length() + filas * 20 + UPSERT_ACTUALIZAR.length());
+        sql.append(UPSERT_PRODUCTOS);
+        for (int i = 0; i < filas; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, 0, ?)" : ", (?, ?, ?, ?, 0, ?)");
+        }
+        return sql.append(UPSERT_ACTUALIZAR).toString();
+    }
+
+    // Misma convención que Hibernate con hibernate.jdbc.time_zone=UTC: hora UTC sin zona
+    private static LocalDateTime ahoraUtc() {
+        return LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    }
+}
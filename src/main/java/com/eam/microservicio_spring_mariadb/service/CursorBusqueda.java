@@ -0,0 +1,42 @@
+package com.eam.microservicio_spring_mariadb.service;
+
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.repository.OrdenProductos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Cursor opaco de la búsqueda: guarda el orden, el id y el valor del campo de orden de la última
+// fila entregada. Un cursor solo vale para el mismo orden con el que se generó.
+final class CursorBusqueda {
+
+    private CursorBusqueda() {
+    }
+
+    record Posicion(long ultimoId, Object valor) {
+    }
+
+    static String codificar(OrdenProductos orden, ProductoVista ultimo) {
+        // El valor va al final porque un nombre puede contener ':'
+        String contenido = orden + ":" + ultimo.id() + ":" + orden.campo().valor(ultimo);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Posicion decodificar(String cursor, OrdenProductos orden) {
+        try {
+            String contenido = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String prefijo = orden + ":";
+            if (!contenido.startsWith(prefijo)) {
+                throw new IllegalArgumentException("El cursor de paginación no es válido");
+            }
+            String[] partes = contenido.substring(prefijo.length()).split(":", 2);
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("El cursor de paginación no es válido");
+            }
+            return new Posicion(Long.parseLong(partes[0]), orden.campo().convertir(partes[1]));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException y errores de Base64 también son IllegalArgumentException
+            throw new IllegalArgumentException("El cursor de paginación no es válido");
+        }
+    }
+}
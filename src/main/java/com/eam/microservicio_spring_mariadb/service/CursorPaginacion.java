@@ -0,0 +1,36 @@
+package com.eam.microservicio_spring_mariadb.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Codifica y decodifica el cursor opaco de la paginación por keyset.
+// El cliente solo debe reenviar el valor recibido, nunca construirlo.
+final class CursorPaginacion {
+
+    private static final String PREFIJO = "id:";
+
+    private CursorPaginacion() {
+    }
+
+    static String codificar(Long ultimoId) {
+        byte[] contenido = (PREFIJO + ultimoId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(contenido);
+    }
+
+    static long decodificar(String cursor) {
+        try {
+            String contenido = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!contenido.startsWith(PREFIJO)) {
+                throw new IllegalArgumentException("El cursor de paginación no es válido");
+            }
+            long ultimoId = Long.parseLong(contenido.substring(PREFIJO.length()));
+            if (ultimoId < 0) {
+                throw new IllegalArgumentException("El cursor de paginación no es válido");
+            }
+            return ultimoId;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException y errores de Base64 también son IllegalArgumentException
+            throw new IllegalArgumentException("El cursor de paginación no es válido");
+        }
+    }
+}
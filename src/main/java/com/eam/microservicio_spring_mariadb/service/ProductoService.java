@@ -1,53 +1,359 @@
 package com.eam.microservicio_spring_mariadb.service;
 
+import com.eam.microservicio_spring_mariadb.busqueda.IndiceProductos;
+import com.eam.microservicio_spring_mariadb.cache.ProductoCache;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.BusInvalidacion;
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.dto.FiltroProductos;
+import com.eam.microservicio_spring_mariadb.dto.PaginaProductos;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoEliminacion;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoItemLote;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoLote;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoUpsert;
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
 import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.exception.PrecondicionFallidaException;
+import com.eam.microservicio_spring_mariadb.exception.StockInsuficienteException;
+import com.eam.microservicio_spring_mariadb.repository.OrdenProductos;
+import com.eam.microservicio_spring_mariadb.repository.ProductoEspecificaciones;
 import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import jakarta.transaction.Transactional;
+import org.hibernate.exception.ConstraintViolationException;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.NoSuchElementException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
+// Cada método público publica el timer "productos.servicio" con etiquetas class, method y exception
 @Service
+@Timed("productos.servicio")
 public class ProductoService {
 
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private ProductoProperties propiedades;
+
+    @Autowired
+    private ProductoCache productoCache;
+
+    @Autowired
+    private BusInvalidacion busInvalidacion;
+
+    // Solo existe con productos.busqueda.habilitada=true
+    @Autowired(required = false)
+    private IndiceProductos indiceProductos;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     // Crear producto (solo si el código no existe)
     public Producto crearProducto(Producto producto) {
         if (producto == null) {
             throw new IllegalArgumentException("El producto no puede ser nulo");
         }
 
-        if (productoRepository.existsByCodigo(producto.getCodigo())) {
-            throw new IllegalArgumentException("Ya existe un producto con el mismo código");
+        // Sin consulta previa: el índice único de codigo decide en el mismo INSERT, también cuando
+        // llegan dos altas simultáneas del mismo código. Con id y versión nulos save() siempre hace
+        // persist; con valores enviados por el cliente haría merge (SELECT previo o UPDATE ajeno)
+        producto.setId(null);
+        producto.setVersion(null);
+        Producto creado;
+        try {
+            creado = productoRepository.save(producto);
+        } catch (DataIntegrityViolationException e) {
+            if (esCodigoDuplicado(e)) {
+                throw new IllegalArgumentException("Ya existe un producto con el mismo código");
+            }
+            throw e;
         }
-        return productoRepository.save(producto);
+
+        // Puede haber un "no existe" en caché para este código
+        busInvalidacion.invalidar(creado.getCodigo());
+        return creado;
     }
 
-    // Obtener todos los productos
-    public List<Producto> listarProductos() {
-        List<Producto> productos = productoRepository.findAll();
+    // Crear varios productos en una sola operación: valida cada uno, consulta los códigos
+    // existentes con un único IN e inserta los aceptados con JDBC batch
+    @Transactional
+    public ResultadoLote crearProductosLote(List<Producto> productos) {
+        if (productos == null || productos.isEmpty()) {
+            throw new IllegalArgumentException("El lote de productos no puede estar vacío");
+        }
+        if (productos.size() > propiedades.getLote().getMaximoItems()) {
+            throw new IllegalArgumentException("El lote supera el máximo de "
+                    + propiedades.getLote().getMaximoItems() + " productos");
+        }
+
+        Map<Integer, ResultadoItemLote> resultados = new HashMap<>();
+        Map<String, Integer> candidatos = new HashMap<>();
+
+        for (int i = 0; i < productos.size(); i++) {
+            Producto producto = productos.get(i);
+            if (producto == null) {
+                resultados.put(i, ResultadoItemLote.rechazado(i, null, "El producto no puede ser nulo"));
+                continue;
+            }
+
+            String errores = validarProducto(producto);
+            if (errores != null) {
+                resultados.put(i, ResultadoItemLote.rechazado(i, producto.getCodigo(), errores));
+                continue;
+            }
+
+            if (candidatos.putIfAbsent(producto.getCodigo(), i) != null) {
+                resultados.put(i, ResultadoItemLote.rechazado(i, producto.getCodigo(),
+                        "El código está repetido dentro del lote"));
+            }
+        }
+
+        if (!candidatos.isEmpty()) {
+            Set<String> existentes = new HashSet<>(productoRepository.findCodigosExistentes(candidatos.keySet()));
+
+            List<Producto> aceptados = new ArrayList<>();
+            candidatos.forEach((codigo, indice) -> {
+                if (existentes.contains(codigo)) {
+                    resultados.put(indice, ResultadoItemLote.rechazado(indice, codigo,
+                            "Ya existe un producto con el mismo código"));
+                } else {
+                    aceptados.add(productos.get(indice));
+                    resultados.put(indice, ResultadoItemLote.creado(indice, codigo));
+                }
+            });
+
+            if (!aceptados.isEmpty()) {
+                try {
+                    productoRepository.insertarLote(aceptados);
+                } catch (DuplicateKeyException e) {
+                    // Otro proceso insertó uno de los códigos entre la consulta y el insert
+                    throw new IllegalArgumentException("Ya existe un producto con el mismo código");
+                }
+                busInvalidacion.invalidar(aceptados.stream().map(Producto::getCodigo).toList());
+            }
+        }
+
+        List<ResultadoItemLote> detalle = new ArrayList<>(resultados.values());
+        detalle.sort(Comparator.comparingInt(ResultadoItemLote::indice));
+        int creados = (int) detalle.stream()
+                .filter(resultado -> resultado.estado() == ResultadoItemLote.Estado.CREADO)
+                .count();
+
+        return new ResultadoLote(detalle.size(), creados, detalle.size() - creados, detalle);
+    }
+
+    // Insertar o actualizar por código un lote completo sin cargar entidades.
+    // Si un código se repite dentro del lote, prevalece su última aparición.
+    @Transactional
+    public ResultadoUpsert upsertProductosLote(List<Producto> productos) {
+        if (productos == null || productos.isEmpty()) {
+            throw new IllegalArgumentException("El lote de productos no puede estar vacío");
+        }
+        if (productos.size() > propiedades.getLote().getMaximoItems()) {
+            throw new IllegalArgumentException("El lote supera el máximo de "
+                    + propiedades.getLote().getMaximoItems() + " productos");
+        }
+
+        Map<String, Producto> porCodigo = new LinkedHashMap<>();
+        for (int i = 0; i < productos.size(); i++) {
+            Producto producto = productos.get(i);
+            if (producto == null) {
+                throw new IllegalArgumentException("El producto en la posición " + i + " no puede ser nulo");
+            }
+
+            String errores = validarProducto(producto);
+            if (errores != null) {
+                throw new IllegalArgumentException("El producto en la posición " + i + " no es válido: " + errores);
+            }
+            porCodigo.put(producto.getCodigo(), producto);
+        }
+
+        List<Producto> unicos = new ArrayList<>(porCodigo.values());
+        long filasAfectadas = productoRepository.upsertLote(unicos);
+        busInvalidacion.invalidar(porCodigo.keySet());
+
+        // MariaDB cuenta 1 por cada fila insertada y 2 por cada fila actualizada
+        int total = unicos.size();
+        int actualizados = (int) Math.max(0, Math.min(total, filasAfectadas - total));
+        return new ResultadoUpsert(total, total - actualizados, actualizados);
+    }
+
+    // Devuelve los mensajes de Bean Validation unidos, o null si el producto es válido
+    private String validarProducto(Producto producto) {
+        Set<ConstraintViolation<Producto>> violaciones = validator.validate(producto);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    // Obtener todos los productos. Las lecturas devuelven ProductoVista y corren en transacciones de
+    // solo lectura: Hibernate no hace flush y la conexión JDBC se marca como read-only
+    @Transactional(readOnly = true)
+    public List<ProductoVista> listarProductos() {
+        List<ProductoVista> productos = productoRepository.findVistas();
         if (productos.isEmpty()) {
             throw new IllegalStateException("No hay productos registrados en la base de datos");
         }
         return productos;
     }
 
-    // Obtener un producto por su código (con validación si no existe)
-    public Producto obtenerPorCodigo(String codigo) {
-        return productoRepository.findByCodigo(codigo)
+    // Listar productos por páginas (keyset sobre el id, sin OFFSET)
+    @Transactional(readOnly = true)
+    public PaginaProductos listarPagina(String cursor, Integer tamano) {
+        int tamanoPagina = resolverTamanoPagina(tamano);
+        long ultimoId = (cursor == null || cursor.isBlank()) ? 0L : CursorPaginacion.decodificar(cursor);
+
+        // Se pide una fila extra solo para saber si existe una página siguiente
+        List<ProductoVista> productos = productoRepository.findVistasDespuesDe(ultimoId, Limit.of(tamanoPagina + 1));
+
+        String siguienteCursor = null;
+        if (productos.size() > tamanoPagina) {
+            productos = productos.subList(0, tamanoPagina);
+            siguienteCursor = CursorPaginacion.codificar(productos.get(tamanoPagina - 1).id());
+        }
+        return new PaginaProductos(productos, siguienteCursor, tamanoPagina);
+    }
+
+    // Buscar con filtros, orden y paginación por keyset sobre (campo de orden, id).
+    // Es una sola consulta acotada por los índices de búsqueda que devuelve como mucho una página
+    @Transactional(readOnly = true)
+    public PaginaProductos buscarProductos(FiltroProductos filtro, String orden, String cursor, Integer tamano) {
+        FiltroProductos criterios = filtro == null ? FiltroProductos.NINGUNO : filtro;
+        validarFiltro(criterios);
+        OrdenProductos ordenBusqueda = OrdenProductos.de(orden);
+        int tamanoPagina = resolverTamanoPagina(tamano);
+
+        Specification<Producto> especificacion = ProductoEspecificaciones.de(criterios);
+        if (cursor != null && !cursor.isBlank()) {
+            CursorBusqueda.Posicion posicion = CursorBusqueda.decodificar(cursor, ordenBusqueda);
+            especificacion = especificacion.and(
+                    ProductoEspecificaciones.despuesDe(ordenBusqueda, posicion.valor(), posicion.ultimoId()));
+        }
+
+        // Igual que listarPagina: una fila extra indica si hay página siguiente
+        List<ProductoVista> productos = productoRepository.buscarVistas(especificacion, ordenBusqueda, tamanoPagina + 1);
+
+        String siguienteCursor = null;
+        if (productos.size() > tamanoPagina) {
+            productos = productos.subList(0, tamanoPagina);
+            siguienteCursor = CursorBusqueda.codificar(ordenBusqueda, productos.get(tamanoPagina - 1));
+        }
+        return new PaginaProductos(productos, siguienteCursor, tamanoPagina);
+    }
+
+    // Sugerencias mientras se escribe, resueltas en el índice en memoria sin consultar MariaDB
+    public List<Sugerencia> sugerirProductos(String texto, Integer limite) {
+        if (indiceProductos == null) {
+            throw new IllegalStateException("La búsqueda en memoria está deshabilitada");
+        }
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío");
+        }
+        ProductoProperties.Busqueda busqueda = propiedades.getBusqueda();
+        int maximo = limite == null ? busqueda.getLimitePorDefecto() : limite;
+        if (maximo < 1) {
+            throw new IllegalArgumentException("El límite de sugerencias debe ser mayor que cero");
+        }
+        return indiceProductos.buscar(texto, Math.min(maximo, busqueda.getLimiteMaximo()));
+    }
+
+    private static void validarFiltro(FiltroProductos filtro) {
+        if (filtro.precioMin() != null && filtro.precioMax() != null && filtro.precioMin() > filtro.precioMax()) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor que el máximo");
+        }
+        if (filtro.cantidadMin() != null && filtro.cantidadMax() != null && filtro.cantidadMin() > filtro.cantidadMax()) {
+            throw new IllegalArgumentException("La cantidad mínima no puede ser mayor que la máxima");
+        }
+        if (filtro.texto() != null && !filtro.texto().isBlank()
+                && ProductoEspecificaciones.palabras(filtro.texto()).isEmpty()) {
+            throw new IllegalArgumentException("La búsqueda de texto necesita al menos una palabra de 3 caracteres");
+        }
+    }
+
+    private int resolverTamanoPagina(Integer tamano) {
+        ProductoProperties.Paginacion paginacion = propiedades.getPaginacion();
+        if (tamano == null) {
+            return Math.min(paginacion.getTamanoPorDefecto(), paginacion.getTamanoMaximo());
+        }
+        if (tamano < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que cero");
+        }
+        return Math.min(tamano, paginacion.getTamanoMaximo());
+    }
+
+    // Exportar todo el catálogo fila a fila, entregando cada producto al consumidor apenas se lee.
+    // Las vistas no entran en el contexto de persistencia, así que la memoria no crece con las filas
+    @Transactional(readOnly = true)
+    public long exportarProductos(Consumer<ProductoVista> consumidor) {
+        long filas = 0;
+
+        try (Stream<ProductoVista> productos = productoRepository.streamVistas()) {
+            Iterator<ProductoVista> iterador = productos.iterator();
+            while (iterador.hasNext()) {
+                consumidor.accept(iterador.next());
+                filas++;
+            }
+        }
+        return filas;
+    }
+
+    // Obtener un producto por su código (con validación si no existe).
+    // Sin transacción propia: un acierto de caché no pide conexión al pool, y un fallo es una sola
+    // consulta en autocommit que no gestiona entidades
+    public ProductoVista obtenerPorCodigo(String codigo) {
+        return productoCache.obtener(codigo, productoRepository::findVistaByCodigo)
                 .orElseThrow(() -> new NoSuchElementException("No se encontró el producto con el código proporcionado"));
     }
 
 
     // Actualizar producto por código (sin permitir cambiar el código)
+    @Transactional
     public Producto actualizarProducto(String codigo, Producto nuevoProducto) {
+        return actualizarProducto(codigo, nuevoProducto, producto -> true);
+    }
+
+    // Actualizar solo si el producto actual cumple la precondición del cliente (If-Match).
+    // La versión se comprueba otra vez al escribir: si otra transacción la cambió entre la
+    // lectura y el commit, Hibernate lanza OptimisticLockingFailureException.
+    @Transactional
+    public Producto actualizarProducto(String codigo, Producto nuevoProducto, Predicate<Producto> precondicion) {
         Optional<Producto> productoExistente = productoRepository.findByCodigo(codigo);
 
         if (!codigo.equals(nuevoProducto.getCodigo())) {
@@ -59,19 +365,116 @@ public class ProductoService {
         }
 
         Producto producto = productoExistente.get();
+        if (!precondicion.test(producto)) {
+            throw new PrecondicionFallidaException("El producto fue modificado por otra petición");
+        }
+
         producto.setNombre(nuevoProducto.getNombre());
         producto.setPrecio(nuevoProducto.getPrecio());
         producto.setCantidad(nuevoProducto.getCantidad());
 
-        return productoRepository.save(producto);
+        Producto actualizado = productoRepository.save(producto);
+        busInvalidacion.invalidar(codigo);
+        return actualizado;
     }
 
-    // Eliminar producto por código
+    // Actualizar reintentando ante conflictos de versión, sin bloquear la fila.
+    // Solo es seguro porque la actualización es idempotente: fija valores absolutos.
+    public Producto actualizarConReintento(String codigo, Producto nuevoProducto) {
+        int reintentosMaximos = propiedades.getConcurrencia().getReintentosMaximos();
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(estado -> actualizarProducto(codigo, nuevoProducto, producto -> true));
+            } catch (OptimisticLockingFailureException e) {
+                if (intento >= reintentosMaximos) {
+                    throw e;
+                }
+                esperarAntesDeReintentar(intento);
+            }
+        }
+    }
+
+    private void esperarAntesDeReintentar(int intento) {
+        long base = propiedades.getConcurrencia().getEsperaBase().toMillis() * intento;
+        if (base <= 0) {
+            return;
+        }
+        try {
+            // La parte aleatoria evita que los perdedores reintenten todos a la vez
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Actualización interrumpida mientras esperaba para reintentar", e);
+        }
+    }
+
+    // Sumar o retirar unidades con un UPDATE condicional, sin cargar la entidad.
+    // La base de datos serializa las escrituras sobre la fila, así que no hace falta ningún
+    // bloqueo en la aplicación y dos pedidos simultáneos nunca pueden dejar el stock negativo.
+    @Transactional
+    public int ajustarStock(String codigo, int delta) {
+        if (delta == 0) {
+            throw new IllegalArgumentException("El ajuste de stock no puede ser cero");
+        }
+
+        if (productoRepository.ajustarCantidad(codigo, delta, Instant.now()) == 0) {
+            int disponible = productoRepository.findCantidadByCodigo(codigo)
+                .orElseThrow(() -> new NoSuchElementException("No se encontró el producto con el código proporcionado"));
+            throw new StockInsuficienteException("Stock insuficiente: hay " + disponible
+                + " unidades y se pidió retirar " + Math.abs(delta));
+        }
+
+        // La fila sigue bloqueada por esta transacción, así que se lee el valor que acabamos de escribir
+        int cantidad = productoRepository.findCantidadByCodigo(codigo).orElseThrow();
+        busInvalidacion.invalidar(codigo);
+        return cantidad;
+    }
+
+    // Eliminar producto por código con un único DELETE; el 404 sale del número de filas borradas
     @Transactional
     public void eliminarProducto(String codigo) {
-        Producto producto = productoRepository.findByCodigo(codigo)
-            .orElseThrow(() -> new NoSuchElementException("No se encontró el producto con el código proporcionado"));
+        if (productoRepository.deleteByCodigo(codigo) == 0) {
+            throw new NoSuchElementException("No se encontró el producto con el código proporcionado");
+        }
+        busInvalidacion.invalidar(codigo);
+    }
+
+    // Eliminar varios productos con un único DELETE ... WHERE codigo IN (...).
+    // Los códigos que no existen no son un error: se reflejan en la diferencia entre pedidos y eliminados
+    @Transactional
+    public ResultadoEliminacion eliminarProductosLote(List<String> codigos) {
+        if (codigos == null || codigos.isEmpty()) {
+            throw new IllegalArgumentException("El lote de códigos no puede estar vacío");
+        }
+        if (codigos.size() > propiedades.getLote().getMaximoItems()) {
+            throw new IllegalArgumentException("El lote supera el máximo de "
+                    + propiedades.getLote().getMaximoItems() + " códigos");
+        }
 
-        productoRepository.delete(producto);
+        Set<String> unicos = new LinkedHashSet<>();
+        for (int i = 0; i < codigos.size(); i++) {
+            String codigo = codigos.get(i);
+            if (codigo == null || codigo.isBlank()) {
+                throw new IllegalArgumentException("El código en la posición " + i + " no puede estar vacío");
+            }
+            unicos.add(codigo);
+        }
+
+        int eliminados = productoRepository.deleteByCodigoIn(unicos);
+        busInvalidacion.invalidar(unicos);
+        return new ResultadoEliminacion(unicos.size(), eliminados);
+    }
+
+    // Violación del índice único (p. ej. error 1062 de MariaDB), distinta de otras restricciones
+    private static boolean esCodigoDuplicado(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        for (Throwable causa = e.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacion) {
+                return violacion.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,36 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+// GET  /actuator/consultaslentas  -> configuración vigente y contadores
+// POST /actuator/consultaslentas  {"habilitado": true, "umbral": "50ms", "maximoPorSegundo": 10}
+// Fuera de la exposición web por defecto: solo debe publicarse en un puerto de gestión interno
+@Component
+@Endpoint(id = "consultaslentas")
+public class ConsultasLentasEndpoint {
+
+    private final RegistroConsultasLentas registro;
+
+    public ConsultasLentasEndpoint(RegistroConsultasLentas registro) {
+        this.registro = registro;
+    }
+
+    @ReadOperation
+    public Map<String, Object> estado() {
+        return registro.estado();
+    }
+
+    @WriteOperation
+    public Map<String, Object> configurar(@Nullable Boolean habilitado, @Nullable Duration umbral,
+                                          @Nullable Integer maximoPorSegundo) {
+        registro.configurar(habilitado, umbral, maximoPorSegundo);
+        return registro.estado();
+    }
+}
@@ -0,0 +1,107 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+// Cuenta las sentencias SQL que ejecuta el hilo actual mientras hay una medición abierta.
+// Sirve para fijar en tests cuántas idas y vueltas hace cada operación (y detectar N+1) y para
+// publicar en tiempo de ejecución las sentencias por endpoint (ContadorSentenciasFilter).
+// Solo ve lo que se ejecuta en el mismo hilo; el trabajo asíncrono no se atribuye a la medición.
+@Component
+public class ContadorSentencias implements QueryExecutionListener {
+
+    private static final int SELECT = 0;
+    private static final int INSERT = 1;
+    private static final int UPDATE = 2;
+    private static final int DELETE = 3;
+    private static final int OTRAS = 4;
+
+    private final ThreadLocal<Medicion> actual = new ThreadLocal<>();
+
+    // Abre una medición en el hilo actual; las mediciones se pueden anidar y la externa
+    // incluye las sentencias de las internas
+    public Medicion iniciar() {
+        Medicion medicion = new Medicion(actual.get());
+        actual.set(medicion);
+        return medicion;
+    }
+
+    public ConteoSentencias medir(Runnable accion) {
+        Medicion medicion = iniciar();
+        try {
+            accion.run();
+        } finally {
+            medicion.terminar();
+        }
+        return medicion.conteo();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Medicion medicion = actual.get();
+        if (medicion == null) {
+            return;
+        }
+        for (QueryInfo consulta : queryInfoList) {
+            int tipo = tipo(consulta.getQuery());
+            for (Medicion abierta = medicion; abierta != null; abierta = abierta.externa) {
+                abierta.contadores[tipo]++;
+            }
+        }
+    }
+
+    static int tipo(String sql) {
+        String inicio = sql.stripLeading();
+        int fin = 0;
+        while (fin < inicio.length() && Character.isLetter(inicio.charAt(fin))) {
+            fin++;
+        }
+        return switch (inicio.substring(0, fin).toLowerCase(Locale.ROOT)) {
+            case "select", "with" -> SELECT;
+            case "insert", "merge" -> INSERT;
+            case "update" -> UPDATE;
+            case "delete" -> DELETE;
+            default -> OTRAS;
+        };
+    }
+
+    public final class Medicion {
+
+        private final Medicion externa;
+
+        private final int[] contadores = new int[5];
+
+        private boolean terminada;
+
+        private Medicion(Medicion externa) {
+            this.externa = externa;
+        }
+
+        // Cierra la medición y devuelve el hilo a la medición externa, si la había
+        public ConteoSentencias terminar() {
+            if (!terminada) {
+                terminada = true;
+                if (externa == null) {
+                    actual.remove();
+                } else {
+                    actual.set(externa);
+                }
+            }
+            return conteo();
+        }
+
+        public ConteoSentencias conteo() {
+            return new ConteoSentencias(contadores[SELECT], contadores[INSERT], contadores[UPDATE],
+                    contadores[DELETE], contadores[OTRAS]);
+        }
+    }
+}
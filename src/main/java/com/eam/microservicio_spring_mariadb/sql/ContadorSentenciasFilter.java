@@ -0,0 +1,56 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Publica cuántas sentencias SQL hace cada petición, por endpoint y tipo de sentencia:
+// resumen "productos.sql.sentencias" con etiquetas method, uri y tipo. Un endpoint cuyo máximo o
+// media crece con el tamaño de los datos está haciendo consultas en bucle (N+1).
+public class ContadorSentenciasFilter extends OncePerRequestFilter {
+
+    private final ContadorSentencias contador;
+
+    private final MeterRegistry registro;
+
+    public ContadorSentenciasFilter(ContadorSentencias contador, MeterRegistry registro) {
+        this.contador = contador;
+        this.registro = registro;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContadorSentencias.Medicion medicion = contador.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ConteoSentencias conteo = medicion.terminar();
+
+            // Mismo valor de uri que http.server.requests, para cruzar ambas métricas
+            Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = patron != null ? patron.toString() : "UNKNOWN";
+            registrar(request.getMethod(), uri, "select", conteo.select());
+            registrar(request.getMethod(), uri, "insert", conteo.insert());
+            registrar(request.getMethod(), uri, "update", conteo.update());
+            registrar(request.getMethod(), uri, "delete", conteo.delete());
+            registrar(request.getMethod(), uri, "otras", conteo.otras());
+        }
+    }
+
+    private void registrar(String metodo, String uri, String tipo, int sentencias) {
+        DistributionSummary.builder("productos.sql.sentencias")
+                .description("Sentencias SQL por petición")
+                .baseUnit("sentencias")
+                .tags("method", metodo, "uri", uri, "tipo", tipo)
+                .register(registro)
+                .record(sentencias);
+    }
+}
@@ -0,0 +1,50 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+// Publica cuántas sentencias SQL hace cada llamada a un método de repositorio: resumen
+// "productos.sql.sentencias.repositorio" con etiquetas repository, method y tipo, las mismas que
+// spring.data.repository.invocations para cruzar ambas métricas. Lo que Hibernate deja para el
+// flush del commit se cuenta en la petición (ContadorSentenciasFilter), no en el método.
+public class ContadorSentenciasRepositorio implements MethodInterceptor {
+
+    private final ContadorSentencias contador;
+
+    private final MeterRegistry registro;
+
+    private final String repositorio;
+
+    public ContadorSentenciasRepositorio(ContadorSentencias contador, MeterRegistry registro, Class<?> repositorio) {
+        this.contador = contador;
+        this.registro = registro;
+        this.repositorio = repositorio.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ContadorSentencias.Medicion medicion = contador.iniciar();
+        try {
+            return invocation.proceed();
+        } finally {
+            ConteoSentencias conteo = medicion.terminar();
+            String metodo = invocation.getMethod().getName();
+            registrar(metodo, "select", conteo.select());
+            registrar(metodo, "insert", conteo.insert());
+            registrar(metodo, "update", conteo.update());
+            registrar(metodo, "delete", conteo.delete());
+            registrar(metodo, "otras", conteo.otras());
+        }
+    }
+
+    private void registrar(String metodo, String tipo, int sentencias) {
+        DistributionSummary.builder("productos.sql.sentencias.repositorio")
+                .description("Sentencias SQL por llamada a un método de repositorio")
+                .baseUnit("sentencias")
+                .tags("repository", repositorio, "method", metodo, "tipo", tipo)
+                .register(registro)
+                .record(sentencias);
+    }
+}
@@ -0,0 +1,16 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+// Sentencias SQL enviadas a la base durante una medición, por tipo.
+// Un batch JDBC cuenta como una sola sentencia: lo que importa es el número de idas y vueltas.
+public record ConteoSentencias(int select, int insert, int update, int delete, int otras) {
+
+    public static final ConteoSentencias NINGUNA = new ConteoSentencias(0, 0, 0, 0, 0);
+
+    public static ConteoSentencias de(int select, int insert, int update, int delete) {
+        return new ConteoSentencias(select, insert, update, delete, 0);
+    }
+
+    public int total() {
+        return select + insert + update + delete + otras;
+    }
+}
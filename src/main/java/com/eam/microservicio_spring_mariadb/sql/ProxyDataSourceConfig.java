@@ -0,0 +1,67 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+
+// Envuelve el DataSource (Hikari) en un proxy JDBC que mide cada sentencia y avisa a los oyentes.
+// El proxy delega unwrap(), así que las métricas y la salud del pool siguen viendo a Hikari.
+// También registra el filtro que publica las sentencias por endpoint y el interceptor que las
+// publica por método de repositorio.
+@Configuration
+public class ProxyDataSourceConfig {
+
+    // static y con ObjectProvider para no crear los oyentes antes que el resto de post-procesadores
+    @Bean
+    public static BeanPostProcessor proxyDataSource(ObjectProvider<RegistroConsultasLentas> registroConsultasLentas,
+                                                    ObjectProvider<ContadorSentencias> contadorSentencias) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(registroConsultasLentas.getObject())
+                        .listener(contadorSentencias.getObject())
+                        .build();
+            }
+        };
+    }
+
+    // Igual que las métricas de repositorio de Spring Boot: se engancha a cada fábrica de
+    // repositorios antes de que cree el proxy
+    @Bean
+    public static BeanPostProcessor contadorSentenciasRepositorios(ObjectProvider<ContadorSentencias> contadorSentencias,
+                                                                   ObjectProvider<MeterRegistry> registro) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> fabrica) {
+                    fabrica.addRepositoryFactoryCustomizer(repositorios -> repositorios.addRepositoryProxyPostProcessor(
+                            (proxy, informacion) -> proxy.addAdvice(new ContadorSentenciasRepositorio(
+                                    contadorSentencias.getObject(), registro.getObject(),
+                                    informacion.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ContadorSentenciasFilter> contadorSentenciasFilter(ContadorSentencias contador,
+                                                                                     MeterRegistry registro) {
+        FilterRegistrationBean<ContadorSentenciasFilter> registroFiltro = new FilterRegistrationBean<>(
+                new ContadorSentenciasFilter(contador, registro));
+        registroFiltro.addUrlPatterns("/api/*");
+        return registroFiltro;
+    }
+}
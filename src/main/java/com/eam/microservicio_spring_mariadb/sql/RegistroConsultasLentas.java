@@ -0,0 +1,129 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Registra en el log solo las sentencias SQL que superan un umbral de latencia, con sus parámetros.
+// El registro está muestreado: como mucho maximoPorSegundo avisos por segundo; el resto se cuenta
+// y se informa en el siguiente aviso, así un pico de lentitud no inunda el log.
+// La configuración se puede cambiar en caliente desde /actuator/consultaslentas.
+@Component
+public class RegistroConsultasLentas implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroConsultasLentas.class);
+
+    // Un INSERT por lote puede llevar miles de parámetros; el aviso se recorta a este tamaño
+    private static final int LONGITUD_MAXIMA = 4_000;
+
+    private final DefaultQueryLogEntryCreator formateador = new DefaultQueryLogEntryCreator();
+
+    private final LongSupplier reloj;
+
+    private volatile boolean habilitado;
+
+    private volatile long umbralMs;
+
+    private volatile int maximoPorSegundo;
+
+    private final AtomicLong segundoActual = new AtomicLong();
+
+    private final AtomicInteger avisosEnSegundo = new AtomicInteger();
+
+    // Omitidas desde el último aviso escrito
+    private final AtomicLong omitidasPendientes = new AtomicLong();
+
+    private final LongAdder lentas = new LongAdder();
+
+    private final LongAdder omitidas = new LongAdder();
+
+    @Autowired
+    public RegistroConsultasLentas(ProductoProperties propiedades) {
+        this(propiedades.getSql().getConsultasLentas(), System::currentTimeMillis);
+    }
+
+    RegistroConsultasLentas(ProductoProperties.ConsultasLentas configuracion, LongSupplier reloj) {
+        this.reloj = reloj;
+        this.habilitado = configuracion.isHabilitada();
+        this.umbralMs = configuracion.getUmbral().toMillis();
+        this.maximoPorSegundo = configuracion.getMaximoPorSegundo();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (!habilitado || execInfo.getElapsedTime() < umbralMs) {
+            return;
+        }
+        lentas.increment();
+        if (!permitirAviso()) {
+            omitidas.increment();
+            omitidasPendientes.incrementAndGet();
+            return;
+        }
+
+        String entrada = formateador.getLogEntry(execInfo, queryInfoList, false, false, false);
+        if (entrada.length() > LONGITUD_MAXIMA) {
+            entrada = entrada.substring(0, LONGITUD_MAXIMA) + "... (" + entrada.length() + " caracteres)";
+        }
+        log.warn("Consulta lenta ({} ms, umbral {} ms, {} avisos omitidos por muestreo): {}",
+                execInfo.getElapsedTime(), umbralMs, omitidasPendientes.getAndSet(0), entrada);
+    }
+
+    // Cambia la configuración en caliente; los valores nulos se dejan como están
+    public void configurar(Boolean habilitado, Duration umbral, Integer maximoPorSegundo) {
+        if (umbral != null && umbral.isNegative()) {
+            throw new IllegalArgumentException("El umbral de consultas lentas no puede ser negativo");
+        }
+        if (maximoPorSegundo != null && maximoPorSegundo < 0) {
+            throw new IllegalArgumentException("El máximo de avisos por segundo no puede ser negativo");
+        }
+        if (umbral != null) {
+            this.umbralMs = umbral.toMillis();
+        }
+        if (maximoPorSegundo != null) {
+            this.maximoPorSegundo = maximoPorSegundo;
+        }
+        if (habilitado != null) {
+            this.habilitado = habilitado;
+        }
+    }
+
+    public Map<String, Object> estado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("habilitado", habilitado);
+        estado.put("umbral", Duration.ofMillis(umbralMs).toString());
+        estado.put("maximoPorSegundo", maximoPorSegundo);
+        estado.put("consultasLentas", lentas.sum());
+        estado.put("avisosOmitidos", omitidas.sum());
+        return estado;
+    }
+
+    // Ventana fija de un segundo; una carrera en el cambio de ventana solo deja pasar algún aviso de más
+    private boolean permitirAviso() {
+        long segundo = reloj.getAsLong() / 1000;
+        long anterior = segundoActual.get();
+        if (segundo != anterior && segundoActual.compareAndSet(anterior, segundo)) {
+            avisosEnSegundo.set(0);
+        }
+        return avisosEnSegundo.incrementAndGet() <= maximoPorSegundo;
+    }
+}
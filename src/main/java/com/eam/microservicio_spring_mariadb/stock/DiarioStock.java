@@ -0,0 +1,224 @@
+package com.eam.microservicio_spring_mariadb.stock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Diario local de ajustes de stock aceptados y aún no aplicados en MariaDB.
+// Cada registro es una línea "codigo;delta". Se escribe por segmentos: al vaciar, el segmento
+// actual se cierra y se abre otro, y el cerrado se borra cuando sus ajustes ya están en la base.
+// Las escrituras se agrupan (group commit): el primer hilo que necesita durabilidad escribe y
+// hace fsync de todo lo acumulado, y los demás hilos que esperaban quedan cubiertos por ese fsync.
+// Usa ReentrantLock y no synchronized para no fijar hilos virtuales a su portador durante el fsync.
+final class DiarioStock implements Closeable {
+
+    static final String EXTENSION = ".diario";
+
+    private final Path directorio;
+
+    // Distingue los segmentos de este arranque de los que dejó uno anterior
+    private final String prefijo = UUID.randomUUID().toString();
+
+    // Protege el buffer y la secuencia de registros aceptados
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    // Serializa write + fsync y la rotación de segmentos
+    private final ReentrantLock sincronizacion = new ReentrantLock();
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private long secuenciaRegistrada;
+
+    private volatile long secuenciaDurable;
+
+    // Secuencia del último registro incluido en un segmento ya cerrado
+    private long secuenciaRotada;
+
+    // Tras un fallo de E/S no se sabe qué llegó al disco, así que el diario deja de aceptar ajustes
+    private volatile IOException fallo;
+
+    private int numeroSegmento;
+
+    private Path segmentoActual;
+
+    private FileChannel canal;
+
+    DiarioStock(Path directorio) throws IOException {
+        this.directorio = directorio;
+        Files.createDirectories(directorio);
+        abrirSegmento();
+    }
+
+    // Registra el ajuste y no vuelve hasta que está en disco
+    void registrar(String codigo, long delta) throws IOException {
+        long secuencia;
+        escritura.lock();
+        try {
+            comprobarFallo();
+            buffer.append(codigo).append(';').append(delta).append('\n');
+            secuencia = ++secuenciaRegistrada;
+        } finally {
+            escritura.unlock();
+        }
+        asegurarDurable(secuencia);
+    }
+
+    // true si el segmento actual tiene registros que aún no se rotaron
+    boolean tieneRegistros() {
+        escritura.lock();
+        try {
+            return secuenciaRegistrada > secuenciaRotada;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Cierra el segmento actual (tras hacerlo durable) y abre uno nuevo. Devuelve el cerrado
+    Path rotar() throws IOException {
+        sincronizacion.lock();
+        try {
+            volcar();
+            canal.close();
+            Path cerrado = segmentoActual;
+            escritura.lock();
+            try {
+                secuenciaRotada = secuenciaDurable;
+            } finally {
+                escritura.unlock();
+            }
+            abrirSegmento();
+            return cerrado;
+        } finally {
+            sincronizacion.unlock();
+        }
+    }
+
+    // Segmentos presentes en el directorio que no son el que está abierto (p. ej. de un arranque anterior)
+    List<Path> segmentosCerrados() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .filter(archivo -> archivo.getFileName().toString().endsWith(EXTENSION))
+                    .filter(archivo -> !archivo.equals(segmentoActual))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sincronizacion.lock();
+        try {
+            if (fallo == null) {
+                volcar();
+            }
+            canal.close();
+        } finally {
+            sincronizacion.unlock();
+        }
+    }
+
+    // Suma los deltas de un segmento por código. Una última línea incompleta corresponde a una
+    // escritura que no terminó su fsync (nadie recibió confirmación), así que se descarta.
+    static Map<String, Long> leer(Path segmento) throws IOException {
+        Map<String, Long> deltas = new HashMap<>();
+        String contenido = Files.readString(segmento, StandardCharsets.UTF_8);
+        int fin = contenido.lastIndexOf('\n');
+        if (fin < 0) {
+            return deltas;
+        }
+        for (String linea : contenido.substring(0, fin).split("\n")) {
+            int separador = linea.lastIndexOf(';');
+            if (separador <= 0) {
+                continue;
+            }
+            deltas.merge(linea.substring(0, separador), Long.parseLong(linea.substring(separador + 1)), Long::sum);
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    // Identificador estable del segmento, guardado en MariaDB al aplicarlo
+    static String identificador(Path segmento) {
+        return segmento.getFileName().toString();
+    }
+
+    static void eliminar(List<Path> segmentos) {
+        for (Path segmento : segmentos) {
+            try {
+                Files.deleteIfExists(segmento);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo eliminar el segmento " + segmento, e);
+            }
+        }
+    }
+
+    private void asegurarDurable(long secuencia) throws IOException {
+        if (secuenciaDurable >= secuencia) {
+            return;
+        }
+        sincronizacion.lock();
+        try {
+            // Otro hilo pudo hacer el fsync mientras este esperaba
+            if (secuenciaDurable >= secuencia) {
+                return;
+            }
+            volcar();
+        } finally {
+            sincronizacion.unlock();
+        }
+    }
+
+    // Debe llamarse con el candado de sincronización tomado
+    private void volcar() throws IOException {
+        comprobarFallo();
+        byte[] datos;
+        long hasta;
+        escritura.lock();
+        try {
+            datos = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            buffer.setLength(0);
+            hasta = secuenciaRegistrada;
+        } finally {
+            escritura.unlock();
+        }
+        if (hasta == secuenciaDurable) {
+            return;
+        }
+
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(datos);
+            while (bytes.hasRemaining()) {
+                canal.write(bytes);
+            }
+            canal.force(false);
+        } catch (IOException e) {
+            fallo = e;
+            throw e;
+        }
+        secuenciaDurable = hasta;
+    }
+
+    private void comprobarFallo() throws IOException {
+        if (fallo != null) {
+            throw new IOException("El diario de stock quedó inutilizable tras un error de escritura", fallo);
+        }
+    }
+
+    private void abrirSegmento() throws IOException {
+        numeroSegmento++;
+        segmentoActual = directorio.resolve(String.format("%s-%08d%s", prefijo, numeroSegmento, EXTENSION));
+        canal = FileChannel.open(segmentoActual, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+}
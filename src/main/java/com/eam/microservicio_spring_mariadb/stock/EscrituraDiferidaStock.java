@@ -0,0 +1,322 @@
+package com.eam.microservicio_spring_mariadb.stock;
+
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.BusInvalidacion;
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.exception.StockInsuficienteException;
+import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Modo opcional de escritura diferida (write-behind) para los ajustes de stock.
+// Los ajustes se aceptan en memoria tras registrarlos en un diario local con fsync agrupado,
+// se acumulan por código y se aplican en MariaDB en un solo batch cada retrasoMaximo. Así un
+// producto muy vendido deja de serializar cada petición en el bloqueo de su fila.
+//
+// El control de sobreventa se hace contra una vista local de la cantidad disponible, que se
+// corrige con el valor real de la base tras cada vaciado. Con varias instancias ajustando el
+// mismo código, la base rechaza la retirada que la dejaría por debajo de cero: la vista local
+// recupera esas unidades y el rechazo queda en el log y en la métrica productos.stock.rechazados.
+@Component
+@ConditionalOnProperty(name = "productos.stock.escritura-diferida.habilitada", havingValue = "true")
+public class EscrituraDiferidaStock implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(EscrituraDiferidaStock.class);
+
+    private final ProductoRepository productoRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BusInvalidacion busInvalidacion;
+
+    private final ProductoProperties.EscrituraDiferida configuracion;
+
+    private final Map<String, Acumulador> acumuladores = new ConcurrentHashMap<>();
+
+    // Los ajustes toman la lectura; el vaciado toma la escritura solo para fotografiar los
+    // acumuladores y rotar el diario, de modo que ambos queden de acuerdo
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    // Segmentos cerrados cuyos ajustes todavía no están confirmados en MariaDB, y la suma de esos
+    // ajustes. Solo cambian dentro de vaciar()
+    private final List<Path> segmentosPendientes = new ArrayList<>();
+
+    private final Map<String, Long> deltasPendientes = new HashMap<>();
+
+    private final LongAdder ajustesRechazados = new LongAdder();
+
+    private final ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "stock-escritura-diferida");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private DiarioStock diario;
+
+    public EscrituraDiferidaStock(ProductoRepository productoRepository, JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate, BusInvalidacion busInvalidacion,
+                                  ProductoProperties propiedades) {
+        this.productoRepository = productoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.busInvalidacion = busInvalidacion;
+        this.configuracion = propiedades.getStock().getEscrituraDiferida();
+    }
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        diario = new DiarioStock(Path.of(configuracion.getDirectorioDiario()));
+        recuperar();
+
+        long intervalo = configuracion.getRetrasoMaximo().toMillis();
+        planificador.scheduleWithFixedDelay(this::vaciarSinPropagar, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        planificador.scheduleWithFixedDelay(this::purgar, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void detener() throws IOException {
+        planificador.shutdown();
+        try {
+            planificador.awaitTermination(configuracion.getRetrasoMaximo().toMillis() * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lo que no se pueda aplicar ahora queda en el diario y se recupera en el próximo arranque
+        vaciarSinPropagar();
+        diario.close();
+    }
+
+    // Acepta el ajuste sin tocar MariaDB y devuelve la cantidad disponible según esta instancia
+    public int ajustar(String codigo, int delta) {
+        if (delta == 0) {
+            throw new IllegalArgumentException("El ajuste de stock no puede ser cero");
+        }
+        Acumulador acumulador = acumuladores.computeIfAbsent(codigo, this::cargar);
+
+        candado.readLock().lock();
+        try {
+            long disponible = acumulador.reservar(delta);
+            try {
+                diario.registrar(codigo, delta);
+            } catch (IOException e) {
+                acumulador.disponible.addAndGet(-delta);
+                throw new IllegalStateException("No se pudo registrar el ajuste de stock en el diario local", e);
+            }
+            // Solo se acumula lo que ya es durable en el diario
+            acumulador.pendiente.add(delta);
+            return (int) disponible;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("productos.stock.rechazados", ajustesRechazados, LongAdder::sum)
+                .description("Retiradas de stock diferidas que MariaDB rechazó por dejar la cantidad bajo cero")
+                .register(registry);
+    }
+
+    // Aplica en MariaDB todos los ajustes acumulados hasta ahora
+    synchronized void vaciar() throws IOException {
+        // Un vaciado anterior pudo fallar después del commit (p. ej. se perdió la respuesta): sus
+        // segmentos ya están registrados y reinsertarlos chocaría con la clave primaria para siempre
+        if (!segmentosPendientes.isEmpty() && yaAplicado(segmentosPendientes.get(0))) {
+            log.warn("El vaciado anterior de stock llegó a confirmarse; se descartan sus {} segmentos",
+                    segmentosPendientes.size());
+            DiarioStock.eliminar(segmentosPendientes);
+            segmentosPendientes.clear();
+            deltasPendientes.clear();
+        }
+
+        Map<String, Long> vistas = new HashMap<>();
+
+        candado.writeLock().lock();
+        try {
+            acumuladores.forEach((codigo, acumulador) -> {
+                long delta = acumulador.pendiente.sumThenReset();
+                if (delta != 0) {
+                    deltasPendientes.merge(codigo, delta, Long::sum);
+                }
+                vistas.put(codigo, acumulador.disponible.get());
+            });
+            if (diario.tieneRegistros()) {
+                segmentosPendientes.add(diario.rotar());
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+
+        if (segmentosPendientes.isEmpty()) {
+            return;
+        }
+
+        // Si falla, los deltas y los segmentos siguen pendientes: el próximo vaciado los
+        // reintenta juntos con los nuevos
+        Map<String, Long> deltas = new HashMap<>(deltasPendientes);
+        deltas.values().removeIf(delta -> delta == 0);
+        Resultado resultado = aplicar(deltas, segmentosPendientes, vistas.keySet());
+        DiarioStock.eliminar(segmentosPendientes);
+        segmentosPendientes.clear();
+        deltasPendientes.clear();
+        registrarRechazos(resultado.rechazados(), deltas);
+
+        // Lo que la base tiene de más o de menos respecto a la vista local son cambios hechos
+        // por fuera de este acumulador (otras instancias, PUT, PATCH inmediato) y las retiradas
+        // rechazadas, cuyas unidades vuelven así a estar disponibles
+        vistas.forEach((codigo, vista) -> {
+            Integer real = resultado.cantidades().get(codigo);
+            if (real == null) {
+                if (deltas.containsKey(codigo)) {
+                    log.warn("Se descartó un ajuste de stock de {} unidades: el producto {} ya no existe",
+                            deltas.get(codigo), codigo);
+                }
+                acumuladores.remove(codigo);
+                return;
+            }
+            acumuladores.get(codigo).disponible.addAndGet(real - vista);
+        });
+
+        if (!deltas.isEmpty()) {
+            busInvalidacion.invalidar(deltas.keySet());
+        }
+    }
+
+    private void vaciarSinPropagar() {
+        try {
+            vaciar();
+        } catch (Exception e) {
+            // Un fallo puntual no debe detener el planificador; se reintenta en el siguiente ciclo
+            log.warn("Error al aplicar los ajustes de stock acumulados: {}", e.getMessage());
+        }
+    }
+
+    // Aplica en MariaDB los segmentos que dejó un arranque anterior y no llegaron a confirmarse
+    void recuperar() throws IOException {
+        List<Path> segmentos = diario.segmentosCerrados();
+        if (segmentos.isEmpty()) {
+            return;
+        }
+
+        List<Path> sinAplicar = new ArrayList<>();
+        Map<String, Long> deltas = new HashMap<>();
+        for (Path segmento : segmentos) {
+            if (!yaAplicado(segmento)) {
+                sinAplicar.add(segmento);
+                DiarioStock.leer(segmento).forEach((codigo, delta) -> deltas.merge(codigo, delta, Long::sum));
+            }
+        }
+
+        if (!sinAplicar.isEmpty()) {
+            registrarRechazos(aplicar(deltas, sinAplicar, List.of()).rechazados(), deltas);
+            log.info("Recuperados {} segmentos del diario de stock con ajustes para {} productos",
+                    sinAplicar.size(), deltas.size());
+        }
+        DiarioStock.eliminar(segmentos);
+        if (!deltas.isEmpty()) {
+            busInvalidacion.invalidar(deltas.keySet());
+        }
+    }
+
+    private boolean yaAplicado(Path segmento) {
+        Integer aplicado = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos_stock_segmentos WHERE segmento = ?", Integer.class,
+                DiarioStock.identificador(segmento));
+        return aplicado != null && aplicado > 0;
+    }
+
+    // Ajustes y registro de segmentos en la misma transacción: o se aplican ambos o ninguno.
+    // El registro (tabla productos_stock_segmentos, migración V3) hace idempotente la recuperación
+    // y el reintento si la instancia cae o pierde la respuesta tras el commit de un vaciado
+    private Resultado aplicar(Map<String, Long> deltas, List<Path> segmentos, Collection<String> codigosAReleer) {
+        return transactionTemplate.execute(estado -> {
+            Set<String> rechazados = deltas.isEmpty() ? Set.of() : productoRepository.ajustarCantidades(deltas);
+            jdbcTemplate.batchUpdate("INSERT INTO productos_stock_segmentos (segmento) VALUES (?)",
+                    segmentos.stream().map(segmento -> new Object[]{DiarioStock.identificador(segmento)}).toList());
+            return new Resultado(rechazados,
+                    codigosAReleer.isEmpty() ? Map.of() : productoRepository.leerCantidades(codigosAReleer));
+        });
+    }
+
+    private void registrarRechazos(Set<String> rechazados, Map<String, Long> deltas) {
+        for (String codigo : rechazados) {
+            ajustesRechazados.increment();
+            log.warn("MariaDB rechazó retirar {} unidades del producto {}: otras instancias ya vendieron ese stock",
+                    -deltas.get(codigo), codigo);
+        }
+    }
+
+    void purgar() {
+        try {
+            jdbcTemplate.update("DELETE FROM productos_stock_segmentos WHERE aplicado_en < NOW(3) - INTERVAL ? SECOND",
+                    configuracion.getRetencionSegmentos().toSeconds());
+        } catch (Exception e) {
+            log.warn("Error al purgar segmentos de stock antiguos: {}", e.getMessage());
+        }
+    }
+
+    private Acumulador cargar(String codigo) {
+        int cantidad = productoRepository.findCantidadByCodigo(codigo)
+                .orElseThrow(() -> new NoSuchElementException("No se encontró el producto con el código proporcionado"));
+        return new Acumulador(cantidad);
+    }
+
+    private record Resultado(Set<String> rechazados, Map<String, Integer> cantidades) {
+    }
+
+    // Estado en memoria de un código: la vista de cantidad disponible y los deltas aún no aplicados
+    private static final class Acumulador {
+
+        private final AtomicLong disponible;
+
+        // Repartido en celdas para que los hilos que ajustan el mismo código no compitan; la
+        // única operación compartida es el compareAndSet de la vista disponible
+        private final LongAdder pendiente = new LongAdder();
+
+        private Acumulador(long disponible) {
+            this.disponible = new AtomicLong(disponible);
+        }
+
+        // Reserva el ajuste contra la vista local sin bloquear; devuelve la nueva cantidad disponible
+        private long reservar(int delta) {
+            while (true) {
+                long actual = disponible.get();
+                long nuevo = actual + delta;
+                if (nuevo < 0) {
+                    throw new StockInsuficienteException("Stock insuficiente: hay " + actual
+                            + " unidades y se pidió retirar " + Math.abs(delta));
+                }
+                if (disponible.compareAndSet(actual, nuevo)) {
+                    return nuevo;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+-- Esquema inicial de productos, equivalente al que generaba Hibernate con ddl-auto=update
+CREATE TABLE IF NOT EXISTS productos (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    codigo         VARCHAR(20)  NOT NULL,
+    nombre         VARCHAR(50)  NOT NULL,
+    precio         DOUBLE       NOT NULL,
+    cantidad       INT          NOT NULL,
+    version        BIGINT       NOT NULL,
+    actualizado_en DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_productos_codigo UNIQUE (codigo)
+) ENGINE = InnoDB;
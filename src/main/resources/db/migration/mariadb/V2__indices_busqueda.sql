@@ -0,0 +1,14 @@
+-- Índices de GET /api/productos/buscar. InnoDB añade la clave primaria al final de cada índice
+-- secundario, así que (campo) ya sirve para ordenar por (campo, id) y paginar por keyset sin filesort.
+
+-- Prefijo de nombre (LIKE 'abc%') y orden por nombre
+CREATE INDEX idx_productos_nombre ON productos (nombre);
+
+-- Rango de precio y orden por precio
+CREATE INDEX idx_productos_precio ON productos (precio);
+
+-- Umbrales de cantidad (stock bajo) y orden por cantidad
+CREATE INDEX idx_productos_cantidad ON productos (cantidad);
+
+-- Búsqueda por palabras en el nombre (MATCH ... AGAINST)
+CREATE FULLTEXT INDEX ft_productos_nombre ON productos (nombre);
@@ -0,0 +1,20 @@
+-- Tablas de los modos opcionales, que antes creaba cada componente al arrancar.
+-- IF NOT EXISTS porque las bases ya en marcha pueden tenerlas de esa época.
+
+-- Eventos de invalidación de caché entre réplicas (productos.cache.invalidacion.transporte=mariadb)
+CREATE TABLE IF NOT EXISTS productos_invalidaciones (
+    id        BIGINT       NOT NULL AUTO_INCREMENT,
+    origen    VARCHAR(36)  NOT NULL,
+    codigos   TEXT         NOT NULL,
+    creado_en TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (id),
+    INDEX idx_productos_invalidaciones_creado_en (creado_en)
+) ENGINE = InnoDB;
+
+-- Segmentos del diario de stock ya aplicados (productos.stock.escritura-diferida.habilitada=true)
+CREATE TABLE IF NOT EXISTS productos_stock_segmentos (
+    segmento    VARCHAR(64)  NOT NULL,
+    aplicado_en TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (segmento),
+    INDEX idx_productos_stock_segmentos_aplicado_en (aplicado_en)
+) ENGINE = InnoDB;
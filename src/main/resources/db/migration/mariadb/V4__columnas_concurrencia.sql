@@ -0,0 +1,6 @@
+-- Columnas de concurrencia optimista y fecha de modificación. V1 ya las crea, pero una base de
+-- la época de ddl-auto se toma como versión 1 (baseline) sin ejecutar V1 y puede no tenerlas.
+-- IF NOT EXISTS porque las bases nuevas, o las que Hibernate ya actualizó, sí las tienen.
+ALTER TABLE productos
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS actualizado_en DATETIME(6);
@@ -0,0 +1,102 @@
+package com.eam.microservicio_spring_mariadb.busqueda;
+
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceInvertidoTest {
+
+    private IndiceInvertido indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceInvertido(4);
+        indice.actualizar("P001", "Camisa azul");
+        indice.actualizar("P002", "Camiseta roja");
+        indice.actualizar("P003", "Pantalón azul marino");
+        indice.actualizar("AB-77", "Cámara fotográfica");
+    }
+
+    private static List<String> codigos(List<Sugerencia> sugerencias) {
+        return sugerencias.stream().map(Sugerencia::codigo).toList();
+    }
+
+    @Test
+    void buscar_DeberiaEncontrarPorPrefijoSinTildesNiMayusculas() {
+        // Empate entre P001 y AB-77: primero el nombre más corto
+        assertEquals(List.of("P001", "AB-77", "P002"), codigos(indice.buscar("CAM", 10)));
+        assertEquals(List.of("P003"), codigos(indice.buscar("pantalon", 10)));
+        assertEquals(List.of("AB-77"), codigos(indice.buscar("fotografica", 10)));
+    }
+
+    @Test
+    void buscar_ConLimite_DeberiaAplicarElMismoDesempateQueSinLimite() {
+        IndiceInvertido empatados = new IndiceInvertido(4);
+        empatados.actualizar("Z900", "Camara roja");
+        empatados.actualizar("M500", "Camara verde");
+        empatados.actualizar("A100", "Camara azul");
+
+        assertEquals(List.of("A100", "Z900", "M500"), codigos(empatados.buscar("camara", 10)));
+        assertEquals(List.of("A100"), codigos(empatados.buscar("camara", 1)));
+        assertEquals(List.of("A100", "Z900"), codigos(empatados.buscar("camara", 2)));
+    }
+
+    @Test
+    void buscar_DeberiaExigirTodasLasPalabrasYPriorizarLaCoincidenciaExacta() {
+        assertEquals(List.of("P001", "P003"), codigos(indice.buscar("azul", 10)));
+        assertEquals(List.of("P003"), codigos(indice.buscar("azul mar", 10)));
+
+        // "camisa" es palabra completa en P001 y solo prefijo en P002
+        List<Sugerencia> sugerencias = indice.buscar("camisa", 10);
+        assertEquals(List.of("P001"), codigos(sugerencias));
+        assertTrue(indice.buscar("cami", 10).get(0).puntuacion() > indice.buscar("cami", 10).get(1).puntuacion());
+    }
+
+    @Test
+    void buscar_DeberiaVerificarLosTerminosMasLargosQueElPrefijoIndexado() {
+        // Con prefijos de 4 caracteres "camiseta" y "camisa" comparten la lista de "cami"
+        assertEquals(List.of("P002"), codigos(indice.buscar("camiseta", 10)));
+        assertTrue(indice.buscar("camisetas", 10).isEmpty());
+    }
+
+    @Test
+    void buscar_DeberiaEncontrarPorCodigoYRespetarElLimite() {
+        assertEquals(List.of("AB-77"), codigos(indice.buscar("ab 77", 10)));
+        assertEquals(List.of("P001"), codigos(indice.buscar("p001", 10)));
+        assertEquals(2, indice.buscar("p", 2).size());
+        assertTrue(indice.buscar("   ", 10).isEmpty());
+    }
+
+    @Test
+    void actualizar_DeberiaReemplazarLosPrefijosDelNombreAnterior() {
+        long entradasAntes = indice.entradas();
+
+        indice.actualizar("P001", "Blusa azul");
+
+        assertEquals(List.of("AB-77", "P002"), codigos(indice.buscar("cam", 10)));
+        assertEquals(List.of("P001"), codigos(indice.buscar("blu", 10)));
+        assertEquals(4, indice.documentos());
+        // "camisa" aportaba 4 prefijos (c, ca, cam, cami) y "blusa" también 4
+        assertEquals(entradasAntes, indice.entradas());
+    }
+
+    @Test
+    void eliminar_DeberiaQuitarElProductoYReutilizarSuHueco() {
+        indice.eliminar("P002");
+
+        assertEquals(List.of("P001", "AB-77"), codigos(indice.buscar("cam", 10)));
+        assertEquals(3, indice.documentos());
+
+        indice.actualizar("P004", "Camioneta");
+        assertEquals(List.of("P001", "P004"), codigos(indice.buscar("cami", 10)));
+        assertEquals(4, indice.documentos());
+
+        indice.vaciar();
+        assertEquals(0, indice.entradas());
+        assertTrue(indice.buscar("cam", 10).isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.eam.microservicio_spring_mariadb.busqueda;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
+import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IndiceProductosTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+
+    private IndiceProductos indiceProductos;
+
+    @BeforeEach
+    void setUp() {
+        indiceProductos = new IndiceProductos(productoRepository, mock(PlatformTransactionManager.class),
+                new ProductoProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        indiceProductos.detener();
+    }
+
+    private static ProductoVista vista(String codigo, String nombre) {
+        return new ProductoVista(1L, codigo, nombre, 1000.0, 1, 0L, null);
+    }
+
+    @Test
+    void buscar_DeberiaFallarMientrasNoSeHayaCargado() {
+        Exception exception = assertThrows(IllegalStateException.class, () -> indiceProductos.buscar("cam", 5));
+
+        assertEquals("El índice de búsqueda todavía se está cargando", exception.getMessage());
+    }
+
+    @Test
+    void cargar_DeberiaIndexarElCatalogoYAplicarLoQueCambioMientrasTanto() {
+        when(productoRepository.streamVistas()).thenAnswer(invocacion -> {
+            // Un cambio que llega durante la carga
+            indiceProductos.invalidar(List.of("P002"));
+            return Stream.of(vista("P001", "Camisa azul"), vista("P002", "Camiseta"));
+        });
+        when(productoRepository.findVistasByCodigoIn(List.of("P002"))).thenReturn(List.of(vista("P002", "Pantalón")));
+
+        indiceProductos.cargar();
+
+        assertTrue(indiceProductos.isListo());
+        assertEquals(List.of("P001"), indiceProductos.buscar("cam", 5).stream().map(Sugerencia::codigo).toList());
+        assertEquals("Pantalón", indiceProductos.buscar("pan", 5).get(0).nombre());
+    }
+
+    @Test
+    void invalidar_DeberiaReleerEnSegundoPlanYQuitarLosCodigosQueYaNoExisten() throws Exception {
+        when(productoRepository.streamVistas()).thenReturn(Stream.of(vista("P001", "Camisa azul")));
+        indiceProductos.cargar();
+        when(productoRepository.findVistasByCodigoIn(any())).thenReturn(List.of());
+
+        indiceProductos.invalidar(List.of("P001"));
+
+        // Lo aplica el hilo del índice, no el que invalida
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!indiceProductos.buscar("cam", 5).isEmpty() && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertTrue(indiceProductos.buscar("cam", 5).isEmpty());
+        verify(productoRepository).findVistasByCodigoIn(List.of("P001"));
+    }
+}
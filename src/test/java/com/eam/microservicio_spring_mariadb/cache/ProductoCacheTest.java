@@ -0,0 +1,85 @@
+package com.eam.microservicio_spring_mariadb.cache;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductoCacheTest {
+
+    private ProductoProperties propiedades;
+
+    private ProductoCache productoCache;
+
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        propiedades = new ProductoProperties();
+        productoCache = new ProductoCache(propiedades);
+    }
+
+    private Optional<ProductoVista> cargar(String codigo) {
+        cargas.incrementAndGet();
+        return "P001".equals(codigo)
+                ? Optional.of(new ProductoVista(1L, "P001", "Camisa", 50000.0, 10, 0L, null))
+                : Optional.empty();
+    }
+
+    @Test
+    void obtener_DeberiaCargarSoloLaPrimeraVez() {
+        productoCache.obtener("P001", this::cargar);
+        Optional<ProductoVista> producto = productoCache.obtener("P001", this::cargar);
+
+        assertTrue(producto.isPresent());
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void obtener_DeberiaGuardarLosCodigosInexistentes() {
+        productoCache.obtener("NO_EXISTE", this::cargar);
+        Optional<ProductoVista> producto = productoCache.obtener("NO_EXISTE", this::cargar);
+
+        assertTrue(producto.isEmpty());
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void invalidar_DeberiaForzarUnaNuevaCarga() {
+        productoCache.obtener("P001", this::cargar);
+        productoCache.invalidar(List.of("P001"));
+        productoCache.obtener("P001", this::cargar);
+
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void obtener_NoDeberiaCachearSiEstaDeshabilitada() {
+        propiedades.getCache().setHabilitada(false);
+        ProductoCache deshabilitada = new ProductoCache(propiedades);
+
+        deshabilitada.obtener("P001", this::cargar);
+        deshabilitada.obtener("P001", this::cargar);
+
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void bindTo_DeberiaPublicarAciertosYFallos() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        productoCache.bindTo(registry);
+
+        productoCache.obtener("P001", this::cargar);
+        productoCache.obtener("P001", this::cargar);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "productos").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "productos").tag("result", "miss").functionCounter().count());
+    }
+}
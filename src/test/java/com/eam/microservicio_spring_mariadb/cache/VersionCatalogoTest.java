@@ -0,0 +1,39 @@
+package com.eam.microservicio_spring_mariadb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionCatalogoTest {
+
+    private final AtomicLong ahora = new AtomicLong(60_000);
+
+    private final VersionCatalogo versionCatalogo = new VersionCatalogo(Duration.ofMinutes(10), ahora::get);
+
+    @Test
+    void etag_DeberiaCambiarConCadaInvalidacion() {
+        String anterior = versionCatalogo.etag();
+        versionCatalogo.invalidar(List.of("P001"));
+
+        assertNotEquals(anterior, versionCatalogo.etag());
+    }
+
+    @Test
+    void etag_DeberiaCaducarTrasElTtlAunqueNoLleguenInvalidaciones() {
+        String anterior = versionCatalogo.etag();
+        long modificacionAnterior = versionCatalogo.ultimaModificacion();
+
+        // Dentro del mismo tramo el 304 sigue siendo válido
+        ahora.addAndGet(Duration.ofMinutes(5).toMillis());
+        assertEquals(anterior, versionCatalogo.etag());
+        assertEquals(modificacionAnterior, versionCatalogo.ultimaModificacion());
+
+        ahora.addAndGet(Duration.ofMinutes(5).toMillis());
+        assertNotEquals(anterior, versionCatalogo.etag());
+        assertEquals(Duration.ofMinutes(10).toMillis(), versionCatalogo.ultimaModificacion());
+    }
+}
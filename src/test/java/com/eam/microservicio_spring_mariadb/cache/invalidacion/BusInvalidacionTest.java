@@ -0,0 +1,133 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusInvalidacionTest {
+
+    // Dos "instancias" del servicio que comparten el mismo transporte en memoria
+    private final TransporteInvalidacionLocal transporte = new TransporteInvalidacionLocal();
+
+    private final OyenteRegistro oyenteNodoA = new OyenteRegistro();
+
+    private final OyenteRegistro oyenteNodoB = new OyenteRegistro();
+
+    private BusInvalidacion nodoA;
+
+    private BusInvalidacion nodoB;
+
+    @BeforeEach
+    void setUp() {
+        nodoA = new BusInvalidacion(transporte, List.of(oyenteNodoA));
+        nodoB = new BusInvalidacion(transporte, List.of(oyenteNodoB));
+        nodoA.iniciar();
+        nodoB.iniciar();
+    }
+
+    @AfterEach
+    void limpiarSincronizacion() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        nodoA.detener();
+        nodoB.detener();
+    }
+
+    @Test
+    void invalidar_DeberiaAvisarALaInstanciaLocalYALasDemas() {
+        nodoA.invalidar(List.of("P001", "P002"));
+
+        assertEquals(List.of(List.of("P001", "P002")), oyenteNodoA.recibidos);
+        assertEquals(List.of(List.of("P001", "P002")), oyenteNodoB.recibidos);
+    }
+
+    @Test
+    void invalidar_DeberiaPublicarALasDemasSoloTrasElCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        nodoA.invalidar("P001");
+
+        assertEquals(1, oyenteNodoA.recibidos.size());
+        assertTrue(oyenteNodoB.recibidos.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // La instancia local se invalida otra vez tras el commit; la remota recibe el evento
+        assertEquals(2, oyenteNodoA.recibidos.size());
+        assertEquals(List.of(List.of("P001")), oyenteNodoB.recibidos);
+    }
+
+    @Test
+    void invalidar_NoDeberiaFallarTrasElCommitSiElTransporteFalla() {
+        TransporteIntermitente intermitente = new TransporteIntermitente(transporte);
+        BusInvalidacion nodoC = new BusInvalidacion(intermitente, List.of());
+        TransactionSynchronizationManager.initSynchronization();
+
+        nodoC.invalidar(List.of("P001"));
+        assertDoesNotThrow(() -> TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit));
+
+        // El evento queda en cola y se entrega en el siguiente reintento
+        assertEquals(1, nodoC.pendientes());
+        assertTrue(oyenteNodoB.recibidos.isEmpty());
+
+        nodoC.reintentarPendientes();
+
+        assertEquals(0, nodoC.pendientes());
+        assertEquals(List.of(List.of("P001")), oyenteNodoB.recibidos);
+    }
+
+    @Test
+    void invalidar_NoDeberiaPublicarSiNoHayCodigos() {
+        nodoA.invalidar(List.of());
+
+        assertTrue(oyenteNodoA.recibidos.isEmpty());
+        assertTrue(oyenteNodoB.recibidos.isEmpty());
+    }
+
+    // Falla la primera publicación y deja pasar las siguientes
+    private static class TransporteIntermitente implements TransporteInvalidacion {
+
+        private final TransporteInvalidacion destino;
+
+        private boolean fallado;
+
+        private TransporteIntermitente(TransporteInvalidacion destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void publicar(EventoInvalidacion evento) {
+            if (!fallado) {
+                fallado = true;
+                throw new IllegalStateException("transporte caído");
+            }
+            destino.publicar(evento);
+        }
+
+        @Override
+        public void suscribir(Consumer<EventoInvalidacion> receptor) {
+            destino.suscribir(receptor);
+        }
+    }
+
+    private static class OyenteRegistro implements OyenteInvalidacion {
+
+        private final List<List<String>> recibidos = new ArrayList<>();
+
+        @Override
+        public void invalidar(Collection<String> codigos) {
+            recibidos.add(List.copyOf(codigos));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.eam.microservicio_spring_mariadb.cache.invalidacion;
+
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.service.ProductoService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// El evento se inserta desde afterCommit de la transacción del servicio. Se lee con una conexión
+// propia, fuera del pool, para comprobar que hizo commit y que el resto de réplicas lo verían.
+// Con autocommit desactivado en el pool, un INSERT que se uniera a la transacción ya terminada
+// se desharía al devolver la conexión; con autocommit activo el fallo no se notaría.
+@SpringBootTest(properties = {
+        "productos.cache.invalidacion.transporte=mariadb",
+        "spring.datasource.hikari.auto-commit=false",
+        "spring.jpa.properties.hibernate.connection.provider_disables_autocommit=true"})
+@Testcontainers
+class TransporteInvalidacionMariaDbIT {
+
+    @Container
+    static MariaDBContainer<?> mariadb = new MariaDBContainer<>("mariadb:10.6")
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mariadb::getJdbcUrl);
+        registry.add("spring.datasource.username", mariadb::getUsername);
+        registry.add("spring.datasource.password", mariadb::getPassword);
+    }
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private BusInvalidacion busInvalidacion;
+
+    @Test
+    void publicar_DeberiaHacerCommitDelEventoTrasLaTransaccionDelServicio() throws Exception {
+        productoService.crearProducto(new Producto(null, "INV01", "Camisa", 50000.0, 10));
+        int antes = eventosDe("INV01");
+
+        // @Transactional: la invalidación se publica en afterCommit
+        productoService.ajustarStock("INV01", 5);
+
+        assertEquals(0, busInvalidacion.pendientes());
+        assertEquals(antes + 1, eventosDe("INV01"));
+    }
+
+    private int eventosDe(String codigo) throws Exception {
+        try (Connection otra = DriverManager.getConnection(mariadb.getJdbcUrl(), mariadb.getUsername(),
+                mariadb.getPassword());
+             PreparedStatement consulta = otra.prepareStatement(
+                     "SELECT COUNT(*) FROM productos_invalidaciones WHERE origen = ? AND codigos = ?")) {
+            consulta.setString(1, busInvalidacion.getOrigen());
+            consulta.setString(2, "[\"" + codigo + "\"]");
+            try (ResultSet resultado = consulta.executeQuery()) {
+                resultado.next();
+                return resultado.getInt(1);
+            }
+        }
+    }
+}
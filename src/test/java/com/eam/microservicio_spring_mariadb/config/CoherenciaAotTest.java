@@ -0,0 +1,80 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import com.eam.microservicio_spring_mariadb.busqueda.IndiceProductos;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.TransporteInvalidacionLocal;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.TransporteInvalidacionMariaDb;
+import com.eam.microservicio_spring_mariadb.stock.EscrituraDiferidaStock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoherenciaAotTest {
+
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private final CoherenciaAot coherencia = new CoherenciaAot(beanFactory, environment);
+
+    // Contexto construido con los valores por defecto
+    @BeforeEach
+    void setUp() {
+        registrar("transporteInvalidacionLocal", TransporteInvalidacionLocal.class);
+        registrar("indiceProductos", IndiceProductos.class);
+        registrar("applicationTaskExecutor", ThreadPoolTaskExecutor.class);
+    }
+
+    @Test
+    void diferencias_DeberianEstarVaciasConLaMismaConfiguracion() {
+        assertEquals(List.of(), coherencia.diferencias());
+    }
+
+    @Test
+    void diferencias_DeberianDetectarOtroTransporte() {
+        environment.setProperty("productos.cache.invalidacion.transporte", "mariadb");
+
+        assertEquals(List.of("productos.cache.invalidacion.transporte es mariadb y la imagen tiene local"),
+                coherencia.diferencias());
+    }
+
+    @Test
+    void diferencias_DeberianDetectarInterruptoresQueNoCreanNiQuitanBeans() {
+        environment.setProperty("productos.stock.escritura-diferida.habilitada", "true");
+        environment.setProperty("productos.busqueda.habilitada", "false");
+
+        assertEquals(List.of(
+                "productos.stock.escritura-diferida.habilitada está activo y la imagen se construyó sin él",
+                "productos.busqueda.habilitada está desactivado y la imagen se construyó con él"),
+                coherencia.diferencias());
+    }
+
+    @Test
+    void diferencias_DeberianAceptarUnaImagenConstruidaConLosModosOpcionales() {
+        DefaultListableBeanFactory construido = new DefaultListableBeanFactory();
+        construido.registerBeanDefinition("transporteInvalidacionMariaDb", new RootBeanDefinition(TransporteInvalidacionMariaDb.class));
+        construido.registerBeanDefinition("escrituraDiferidaStock", new RootBeanDefinition(EscrituraDiferidaStock.class));
+        environment.setProperty("productos.cache.invalidacion.transporte", "mariadb");
+        environment.setProperty("productos.stock.escritura-diferida.habilitada", "true");
+        environment.setProperty("productos.busqueda.habilitada", "false");
+
+        assertEquals(List.of(), new CoherenciaAot(construido, environment).diferencias());
+    }
+
+    @Test
+    void afterSingletonsInstantiated_SinAot_NoDeberiaComprobarNada() {
+        environment.setProperty("productos.cache.invalidacion.transporte", "mariadb");
+
+        assertDoesNotThrow(coherencia::afterSingletonsInstantiated);
+    }
+
+    private void registrar(String nombre, Class<?> tipo) {
+        beanFactory.registerBeanDefinition(nombre, new RootBeanDefinition(tipo));
+    }
+}
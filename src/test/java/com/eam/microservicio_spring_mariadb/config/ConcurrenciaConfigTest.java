@@ -0,0 +1,23 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrenciaConfigTest {
+
+    private final ProductoProperties.Concurrencia concurrencia = new ProductoProperties().getConcurrencia();
+
+    @Test
+    void limite_DeberiaSalirDelPoolSiNoSeFija() {
+        // Por defecto, peticiones-por-conexion (3) por cada conexión: baja junto con el pool
+        assertEquals(60, ConcurrenciaConfig.limite(concurrencia, 20));
+        assertEquals(9, ConcurrenciaConfig.limite(concurrencia, 3));
+
+        concurrencia.setPeticionesPorConexion(2);
+        assertEquals(6, ConcurrenciaConfig.limite(concurrencia, 3));
+
+        concurrencia.setLimitePeticiones(50);
+        assertEquals(50, ConcurrenciaConfig.limite(concurrencia, 3));
+    }
+}
@@ -0,0 +1,76 @@
+package com.eam.microservicio_spring_mariadb.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitePeticionesFilterTest {
+
+    private final LimitePeticionesFilter filtro = new LimitePeticionesFilter(1, Duration.ofMillis(20));
+
+    @Test
+    void doFilter_DeberiaResponder503SiNoQuedanPermisos() throws Exception {
+        MockHttpServletResponse segunda = new MockHttpServletResponse();
+
+        // La primera petición sigue en curso cuando llega la segunda
+        HttpServlet ocupado = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                try {
+                    filtro.doFilter(new MockHttpServletRequest("GET", "/api/productos/listar"), segunda, new MockFilterChain());
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        MockHttpServletResponse primera = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/api/productos/listar"), primera, new MockFilterChain(ocupado));
+
+        assertEquals(200, primera.getStatus());
+        assertEquals(503, segunda.getStatus());
+        assertEquals("1", segunda.getHeader("Retry-After"));
+        assertEquals(1, filtro.disponibles());
+    }
+
+    @Test
+    void doFilter_DeberiaLiberarElPermisoAunqueLaPeticionFalle() {
+        MockFilterChain fallida = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                throw new IllegalStateException("fallo");
+            }
+        });
+
+        assertThrows(IllegalStateException.class, () ->
+                filtro.doFilter(new MockHttpServletRequest("GET", "/api/productos/listar"), new MockHttpServletResponse(), fallida));
+        assertEquals(1, filtro.disponibles());
+    }
+
+    @Test
+    void doFilter_DeberiaConservarElPermisoHastaQueTermineLaPeticionAsincrona() throws Exception {
+        MockHttpServletRequest exportacion = new MockHttpServletRequest("GET", "/api/productos/exportar");
+        exportacion.setAsyncSupported(true);
+        MockFilterChain asincrona = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                request.startAsync();
+            }
+        });
+
+        filtro.doFilter(exportacion, new MockHttpServletResponse(), asincrona);
+        assertEquals(0, filtro.disponibles());
+
+        exportacion.getAsyncContext().complete();
+        assertEquals(1, filtro.disponibles());
+    }
+}
@@ -1,17 +1,21 @@
 package com.eam.microservicio_spring_mariadb.controller;
 
+import com.eam.microservicio_spring_mariadb.cache.ProductoCache;
 import com.eam.microservicio_spring_mariadb.entity.Producto;
 import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.MariaDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -22,6 +26,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
 @Testcontainers
 public class ProductoControllerIT {
 
@@ -49,9 +54,14 @@ public class ProductoControllerIT {
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private ProductoCache productoCache;
+
     @BeforeEach
     void cleanDB() {
         productoRepository.deleteAll();
+        // deleteAll no pasa por el servicio, así que la caché se vacía a mano
+        productoCache.invalidarTodo();
     }
 
     @BeforeEach
@@ -97,6 +107,46 @@ public class ProductoControllerIT {
     }
 
 
+    @Test
+    void listarProductosPaginado_DeberiaRecorrerTodasLasPaginas() throws Exception {
+        for (String codigo : new String[]{"P001", "P002", "P003"}) {
+            producto.setCodigo(codigo);
+            mockMvc.perform(post("/api/productos/crear")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(producto)))
+                    .andExpect(status().isOk());
+        }
+
+        String primera = mockMvc.perform(get("/api/productos/listar-paginado").param("tamano", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = objectMapper.readTree(primera).get("siguienteCursor").asText();
+
+        mockMvc.perform(get("/api/productos/listar-paginado").param("tamano", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos[0].codigo").value("P003"))
+                .andExpect(jsonPath("$.siguienteCursor").isEmpty());
+    }
+
+    @Test
+    void exportarProductos_DeberiaRetornarNdjson() throws Exception {
+        mockMvc.perform(post("/api/productos/crear")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(producto)))
+                .andExpect(status().isOk());
+
+        MvcResult resultado = mockMvc.perform(get("/api/productos/exportar"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(containsString("\"codigo\":\"P001\"")));
+    }
+
     @Test
     void obtenerProducto_Existente_DeberiaRetornar200() throws Exception {
         mockMvc.perform(post("/api/productos/crear")
@@ -109,6 +159,31 @@ public class ProductoControllerIT {
                 .andExpect(jsonPath("$.nombre").value("Camisa"));
     }
 
+    @Test
+    void obtenerProducto_ConEtagVigente_DeberiaRetornar304() throws Exception {
+        mockMvc.perform(post("/api/productos/crear")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(producto)))
+                .andExpect(status().isOk());
+
+        String etag = mockMvc.perform(get("/api/productos/obtener/P001"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/productos/obtener/P001").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        producto.setNombre("Camisa actualizada");
+        mockMvc.perform(put("/api/productos/actualizar/P001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(producto)))
+                .andExpect(status().isOk());
+
+        // Tras la actualización la versión cambió y el ETag anterior ya no vale
+        mockMvc.perform(get("/api/productos/obtener/P001").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void obtenerProducto_NoExistente_DeberiaRetornar404() throws Exception {
         mockMvc.perform(get("/api/productos/obtener/NO_EXISTE"))
@@ -169,4 +244,25 @@ public class ProductoControllerIT {
         mockMvc.perform(get("/api/productos/listar"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void prometheus_DeberiaExponerMetricasDeEndpointsServicioYPersistencia() throws Exception {
+        mockMvc.perform(post("/api/productos/crear")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(producto)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/productos/obtener/P001"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("uri=\"/api/productos/obtener/{codigo}\"")))
+                .andExpect(content().string(containsString("productos_servicio_seconds_bucket")))
+                .andExpect(content().string(containsString("method=\"crearProducto\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")))
+                .andExpect(content().string(containsString("hibernate_statements_total")));
+    }
 }
@@ -1,6 +1,18 @@
 package com.eam.microservicio_spring_mariadb.controller;
 
+import com.eam.microservicio_spring_mariadb.cache.VersionCatalogo;
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.dto.FiltroProductos;
+import com.eam.microservicio_spring_mariadb.dto.PaginaProductos;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoEliminacion;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoItemLote;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoLote;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoUpsert;
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
 import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.exception.PrecondicionFallidaException;
+import com.eam.microservicio_spring_mariadb.exception.StockInsuficienteException;
 import com.eam.microservicio_spring_mariadb.service.ProductoService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -13,15 +25,25 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @WebMvcTest(ProductoController.class)
+@Import({VersionCatalogo.class, ProductoProperties.class})
 public class ProductoControllerTest {
 
     @Autowired
@@ -30,6 +52,9 @@ public class ProductoControllerTest {
     @MockBean
     private ProductoService productoService;
 
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     @Test
@@ -58,10 +83,57 @@ public class ProductoControllerTest {
                 .andExpect(content().string("Código duplicado"));
     }
 
+    @Test
+    void crearProductosLote_DeberiaRetornarReportePorItem() throws Exception {
+        List<Producto> lote = List.of(
+                new Producto(null, "P001", "Camisa", 50000.0, 10),
+                new Producto(null, "P002", "Pantalón", 80000.0, 5)
+        );
+        ResultadoLote resultado = new ResultadoLote(2, 1, 1, List.of(
+                ResultadoItemLote.creado(0, "P001"),
+                ResultadoItemLote.rechazado(1, "P002", "Ya existe un producto con el mismo código")));
+
+        when(productoService.crearProductosLote(any())).thenReturn(resultado);
+
+        mockMvc.perform(post("/api/productos/crear-lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(lote)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creados").value(1))
+                .andExpect(jsonPath("$.rechazados").value(1))
+                .andExpect(jsonPath("$.resultados[1].estado").value("RECHAZADO"));
+    }
+
+    @Test
+    void crearProductosLote_DeberiaRetornarBadRequestSiLoteVacio() throws Exception {
+        when(productoService.crearProductosLote(any()))
+                .thenThrow(new IllegalArgumentException("El lote de productos no puede estar vacío"));
+
+        mockMvc.perform(post("/api/productos/crear-lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("El lote de productos no puede estar vacío"));
+    }
+
+    @Test
+    void upsertProductosLote_DeberiaRetornarConteos() throws Exception {
+        List<Producto> lote = List.of(new Producto(null, "P001", "Camisa", 50000.0, 10));
+
+        when(productoService.upsertProductosLote(any())).thenReturn(new ResultadoUpsert(1, 0, 1));
+
+        mockMvc.perform(put("/api/productos/upsert-lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(lote)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.insertados").value(0))
+                .andExpect(jsonPath("$.actualizados").value(1));
+    }
+
     @Test
     void listarProductos_DeberiaRetornarLista() throws Exception {
-        List<Producto> lista = List.of(
-                new Producto(1L, "P001", "Camisa", 50000.0, 10)
+        List<ProductoVista> lista = List.of(
+                vista(1L, "P001", "Camisa", 50000.0, 10)
         );
 
         when(productoService.listarProductos()).thenReturn(lista);
@@ -80,9 +152,103 @@ public class ProductoControllerTest {
                 .andExpect(content().string("No hay productos"));
     }
 
+    @Test
+    void listarProductosPaginado_DeberiaRetornarPaginaYCursor() throws Exception {
+        PaginaProductos pagina = new PaginaProductos(
+                List.of(vista(1L, "P001", "Camisa", 50000.0, 10)), "aWQ6MQ", 1);
+
+        when(productoService.listarPagina(null, 1)).thenReturn(pagina);
+
+        mockMvc.perform(get("/api/productos/listar-paginado").param("tamano", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos[0].codigo").value("P001"))
+                .andExpect(jsonPath("$.siguienteCursor").value("aWQ6MQ"))
+                .andExpect(jsonPath("$.tamano").value(1));
+    }
+
+    @Test
+    void listarProductosPaginado_DeberiaRetornarBadRequestSiCursorInvalido() throws Exception {
+        when(productoService.listarPagina("xxx", null))
+                .thenThrow(new IllegalArgumentException("El cursor de paginación no es válido"));
+
+        mockMvc.perform(get("/api/productos/listar-paginado").param("cursor", "xxx"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("El cursor de paginación no es válido"));
+    }
+
+    @Test
+    void buscarProductos_DeberiaEnlazarLosFiltrosDeLaQueryString() throws Exception {
+        FiltroProductos filtro = new FiltroProductos("Cam", "azul", 10.0, 50.0, null, 5);
+        when(productoService.buscarProductos(filtro, "precio,desc", null, 20)).thenReturn(new PaginaProductos(
+                List.of(vista(1L, "P001", "Camisa azul", 20.0, 3)), "c2lndWllbnRl", 20));
+
+        mockMvc.perform(get("/api/productos/buscar")
+                        .param("nombre", "Cam").param("texto", "azul")
+                        .param("precioMin", "10").param("precioMax", "50").param("cantidadMax", "5")
+                        .param("orden", "precio,desc").param("tamano", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos[0].codigo").value("P001"))
+                .andExpect(jsonPath("$.siguienteCursor").value("c2lndWllbnRl"));
+    }
+
+    @Test
+    void buscarProductos_DeberiaRetornarBadRequestSiElFiltroNoEsValido() throws Exception {
+        when(productoService.buscarProductos(any(), any(), any(), any()))
+                .thenThrow(new IllegalArgumentException("El precio mínimo no puede ser mayor que el máximo"));
+
+        mockMvc.perform(get("/api/productos/buscar").param("precioMin", "50").param("precioMax", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("El precio mínimo no puede ser mayor que el máximo"));
+    }
+
+    @Test
+    void sugerirProductos_DeberiaRetornarLasSugerencias() throws Exception {
+        when(productoService.sugerirProductos("cam", 5)).thenReturn(List.of(new Sugerencia("P001", "Camisa", 2.5)));
+
+        mockMvc.perform(get("/api/productos/sugerencias").param("q", "cam").param("limite", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sugerencias[0].codigo").value("P001"))
+                .andExpect(jsonPath("$.sugerencias[0].puntuacion").value(2.5));
+    }
+
+    @Test
+    void sugerirProductos_DeberiaRetornarServiceUnavailableSiElIndiceNoEstaListo() throws Exception {
+        when(productoService.sugerirProductos("cam", null))
+                .thenThrow(new IllegalStateException("El índice de búsqueda todavía se está cargando"));
+
+        mockMvc.perform(get("/api/productos/sugerencias").param("q", "cam"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("El índice de búsqueda todavía se está cargando"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportarProductos_DeberiaEscribirUnaLineaPorProducto() throws Exception {
+        doAnswer(invocacion -> {
+            Consumer<ProductoVista> consumidor = invocacion.getArgument(0);
+            consumidor.accept(vista(1L, "P001", "Camisa", 50000.0, 10));
+            consumidor.accept(vista(2L, "P002", "Pantalón", 80000.0, 5));
+            return 2L;
+        }).when(productoService).exportarProductos(any(Consumer.class));
+
+        MvcResult resultado = mockMvc.perform(get("/api/productos/exportar"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lineas = cuerpo.split("\n");
+        assertEquals(2, lineas.length);
+        assertEquals("P001", mapper.readTree(lineas[0]).get("codigo").asText());
+        assertEquals("P002", mapper.readTree(lineas[1]).get("codigo").asText());
+    }
+
     @Test
     void obtenerProducto_DeberiaRetornarProductoSiExiste() throws Exception {
-        Producto producto = new Producto(1L, "P001", "Camisa", 50000.0, 10);
+        ProductoVista producto = vista(1L, "P001", "Camisa", 50000.0, 10);
 
         when(productoService.obtenerPorCodigo("P001")).thenReturn(producto);
 
@@ -91,6 +257,50 @@ public class ProductoControllerTest {
                 .andExpect(jsonPath("$.codigo").value("P001"));
     }
 
+    @Test
+    void obtenerProducto_DeberiaIncluirEtagYLastModified() throws Exception {
+        ProductoVista producto = new ProductoVista(1L, "P001", "Camisa", 50000.0, 10, 3L,
+                Instant.parse("2025-01-10T08:00:00Z"));
+
+        when(productoService.obtenerPorCodigo("P001")).thenReturn(producto);
+
+        mockMvc.perform(get("/api/productos/obtener/P001"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"p1v3\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Fri, 10 Jan 2025 08:00:00 GMT"));
+    }
+
+    @Test
+    void obtenerProducto_DeberiaRetornarNotModifiedSiElEtagCoincide() throws Exception {
+        ProductoVista producto = new ProductoVista(1L, "P001", "Camisa", 50000.0, 10, 3L, null);
+
+        when(productoService.obtenerPorCodigo("P001")).thenReturn(producto);
+
+        mockMvc.perform(get("/api/productos/obtener/P001").header(HttpHeaders.IF_NONE_MATCH, "\"p1v3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void listarProductos_DeberiaRetornarNotModifiedSinConsultarSiElCatalogoNoCambio() throws Exception {
+        mockMvc.perform(get("/api/productos/listar").header(HttpHeaders.IF_NONE_MATCH, versionCatalogo.etag()))
+                .andExpect(status().isNotModified());
+
+        verify(productoService, never()).listarProductos();
+    }
+
+    @Test
+    void listarProductos_DeberiaCambiarElEtagTrasUnaEscritura() throws Exception {
+        String etagAnterior = versionCatalogo.etag();
+        versionCatalogo.invalidar(List.of("P001"));
+
+        when(productoService.listarProductos()).thenReturn(List.of(vista(1L, "P001", "Camisa", 50000.0, 10)));
+
+        mockMvc.perform(get("/api/productos/listar").header(HttpHeaders.IF_NONE_MATCH, etagAnterior))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, versionCatalogo.etag()));
+    }
+
     @Test
     void obtenerProducto_DeberiaRetornarNotFoundSiNoExiste() throws Exception {
         when(productoService.obtenerPorCodigo("P999"))
@@ -129,6 +339,99 @@ public class ProductoControllerTest {
                 .andExpect(content().string("No se permite modificar el código"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void actualizarProducto_ConIfMatch_DeberiaEvaluarElEtagContraLaVersionActual() throws Exception {
+        Producto producto = new Producto(1L, "P001", "Camisa actualizada", 60000.0, 8);
+        producto.setVersion(2L);
+        Producto vigente = new Producto(1L, "P001", "Camisa", 50000.0, 10);
+        vigente.setVersion(1L);
+
+        when(productoService.actualizarProducto(eq("P001"), any(), any(Predicate.class))).thenAnswer(invocacion -> {
+            Predicate<Producto> precondicion = invocacion.getArgument(2);
+            if (!precondicion.test(vigente)) {
+                throw new PrecondicionFallidaException("El producto fue modificado por otra petición");
+            }
+            return producto;
+        });
+
+        mockMvc.perform(put("/api/productos/actualizar/P001")
+                        .header(HttpHeaders.IF_MATCH, "\"p1v1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(producto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"p1v2\""));
+
+        mockMvc.perform(put("/api/productos/actualizar/P001")
+                        .header(HttpHeaders.IF_MATCH, "\"p1v0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(producto)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string("El producto fue modificado por otra petición"));
+    }
+
+    @Test
+    void actualizarProducto_DeberiaRetornarConflictSiHayEscrituraConcurrente() throws Exception {
+        Producto producto = new Producto(1L, "P001", "Camisa", 50000.0, 10);
+
+        when(productoService.actualizarProducto(eq("P001"), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Producto.class, 1L));
+
+        mockMvc.perform(put("/api/productos/actualizar/P001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(producto)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void actualizarProducto_ConReintentar_DeberiaUsarLaActualizacionConReintento() throws Exception {
+        Producto producto = new Producto(1L, "P001", "Camisa", 50000.0, 10);
+
+        when(productoService.actualizarConReintento(eq("P001"), any())).thenReturn(producto);
+
+        mockMvc.perform(put("/api/productos/actualizar/P001")
+                        .param("reintentar", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(producto)))
+                .andExpect(status().isOk());
+
+        verify(productoService, never()).actualizarProducto(any(), any());
+    }
+
+    @Test
+    void ajustarStock_DeberiaRetornarLaNuevaCantidad() throws Exception {
+        when(productoService.ajustarStock("P001", -2)).thenReturn(8);
+
+        mockMvc.perform(patch("/api/productos/P001/stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\": -2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.codigo").value("P001"))
+                .andExpect(jsonPath("$.cantidad").value(8));
+    }
+
+    @Test
+    void ajustarStock_DeberiaRetornarConflictSiNoHayStock() throws Exception {
+        when(productoService.ajustarStock("P001", -20))
+                .thenThrow(new StockInsuficienteException("Stock insuficiente: hay 10 unidades y se pidió retirar 20"));
+
+        mockMvc.perform(patch("/api/productos/P001/stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\": -20}"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Stock insuficiente: hay 10 unidades y se pidió retirar 20"));
+    }
+
+    @Test
+    void ajustarStock_DeberiaRetornarBadRequestSinDelta() throws Exception {
+        mockMvc.perform(patch("/api/productos/P001/stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(productoService, never()).ajustarStock(any(), anyInt());
+    }
+
     @Test
     void eliminarProducto_DeberiaRetornarOk() throws Exception {
         doNothing().when(productoService).eliminarProducto("P001");
@@ -146,4 +449,34 @@ public class ProductoControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("No se encontró el producto"));
     }
+
+    @Test
+    void eliminarProductosLote_DeberiaRetornarResumen() throws Exception {
+        when(productoService.eliminarProductosLote(List.of("P001", "P002", "P404")))
+                .thenReturn(new ResultadoEliminacion(3, 2));
+
+        mockMvc.perform(delete("/api/productos/eliminar-lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"P001\",\"P002\",\"P404\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.solicitados").value(3))
+                .andExpect(jsonPath("$.eliminados").value(2))
+                .andExpect(jsonPath("$.mensaje").value("Lote eliminado: 2 de 3 productos."));
+    }
+
+    @Test
+    void eliminarProductosLote_DeberiaRetornarBadRequestSiElLoteEstaVacio() throws Exception {
+        when(productoService.eliminarProductosLote(List.of()))
+                .thenThrow(new IllegalArgumentException("El lote de códigos no puede estar vacío"));
+
+        mockMvc.perform(delete("/api/productos/eliminar-lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("El lote de códigos no puede estar vacío"));
+    }
+
+    private static ProductoVista vista(Long id, String codigo, String nombre, Double precio, Integer cantidad) {
+        return new ProductoVista(id, codigo, nombre, precio, cantidad, null, null);
+    }
 }
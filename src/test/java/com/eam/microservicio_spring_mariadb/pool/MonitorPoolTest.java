@@ -0,0 +1,134 @@
+package com.eam.microservicio_spring_mariadb.pool;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MonitorPoolTest {
+
+    private final HikariPoolMXBean estadoPool = mock(HikariPoolMXBean.class);
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+    private final ProductoProperties propiedades = new ProductoProperties();
+
+    private HikariDataSource hikari;
+
+    private Timer adquisicion;
+
+    private MonitorPool monitor;
+
+    @BeforeEach
+    void setUp() {
+        // Pool sin arrancar (no hay base de datos) que expone un estado simulado
+        hikari = new HikariDataSource() {
+            @Override
+            public HikariPoolMXBean getHikariPoolMXBean() {
+                return estadoPool;
+            }
+        };
+        hikari.setPoolName("pool-prueba");
+        hikari.setMaximumPoolSize(4);
+        adquisicion = Timer.builder("hikaricp.connections.acquire").tag("pool", "pool-prueba").register(registro);
+
+        propiedades.getPool().setConexionesBaseDeDatos(10);
+        ProductoProperties.Adaptativo adaptativo = propiedades.getPool().getAdaptativo();
+        adaptativo.setHabilitado(true);
+        // Las mediciones las lanza cada prueba
+        adaptativo.setIntervalo(Duration.ofHours(1));
+        adaptativo.setIntervalosParaReducir(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.detener();
+        hikari.close();
+    }
+
+    @Test
+    void muestrear_DeberiaCrecerElPoolSiLaEsperaSuperaElObjetivo() {
+        iniciarMonitor();
+        saturar();
+
+        monitor.muestrear();
+
+        assertEquals(5, hikari.getMaximumPoolSize());
+        assertEquals(1.0, registro.get("productos.pool.saturacion").gauge().value());
+        assertEquals(20.0, registro.get("productos.pool.espera").gauge().value(), 0.001);
+        assertEquals(5.0, registro.get("productos.pool.tamano").gauge().value());
+    }
+
+    @Test
+    void muestrear_NoDeberiaPasarDelTopeDeLaReplica() {
+        propiedades.getPool().setReplicas(2);
+        iniciarMonitor();
+
+        for (int i = 0; i < 5; i++) {
+            saturar();
+            monitor.muestrear();
+        }
+
+        assertEquals(5, hikari.getMaximumPoolSize());
+    }
+
+    @Test
+    void muestrear_DeberiaVolverAlTamanoBaseCuandoElPoolQuedaHolgado() {
+        iniciarMonitor();
+        saturar();
+        monitor.muestrear();
+        assertEquals(5, hikari.getMaximumPoolSize());
+
+        when(estadoPool.getActiveConnections()).thenReturn(1);
+        when(estadoPool.getThreadsAwaitingConnection()).thenReturn(0);
+        adquisicion.record(Duration.ofNanos(100));
+
+        monitor.muestrear();
+        assertEquals(5, hikari.getMaximumPoolSize());
+        monitor.muestrear();
+        assertEquals(4, hikari.getMaximumPoolSize());
+
+        // Nunca por debajo del tamaño base
+        monitor.muestrear();
+        monitor.muestrear();
+        assertEquals(4, hikari.getMaximumPoolSize());
+        assertEquals(0.25, registro.get("productos.pool.saturacion").gauge().value());
+    }
+
+    @Test
+    void muestrear_SinModoAdaptativoSoloDeberiaInformar() {
+        propiedades.getPool().getAdaptativo().setHabilitado(false);
+        iniciarMonitor();
+        saturar();
+
+        monitor.muestrear();
+
+        assertEquals(4, hikari.getMaximumPoolSize());
+        assertEquals(1.0, registro.get("productos.pool.saturacion").gauge().value());
+        assertEquals(20.0, registro.get("productos.pool.espera").gauge().value(), 0.001);
+    }
+
+    private void iniciarMonitor() {
+        monitor = new MonitorPool(hikari, propiedades);
+        monitor.bindTo(registro);
+        monitor.iniciar();
+    }
+
+    // Todas las conexiones en uso, hilos esperando y tres adquisiciones de 20 ms en el intervalo
+    private void saturar() {
+        when(estadoPool.getActiveConnections()).thenReturn(hikari.getMaximumPoolSize());
+        when(estadoPool.getThreadsAwaitingConnection()).thenReturn(3);
+        for (int i = 0; i < 3; i++) {
+            adquisicion.record(Duration.ofMillis(20));
+        }
+    }
+}
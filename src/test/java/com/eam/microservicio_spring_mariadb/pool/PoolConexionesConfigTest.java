@@ -0,0 +1,53 @@
+package com.eam.microservicio_spring_mariadb.pool;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PoolConexionesConfigTest {
+
+    private final ProductoProperties propiedades = new ProductoProperties();
+
+    @Test
+    void tamanoBase_DeberiaSalirDeLosNucleosYNoPasarDeLaCuotaDeLaReplica() {
+        ProductoProperties.Pool pool = propiedades.getPool();
+
+        // Sin núcleos de MariaDB configurados, el tamaño fijo de antes y no los de esta máquina
+        assertEquals(20, PoolConexionesConfig.tamanoBase(pool));
+
+        pool.setNucleosBaseDeDatos(8);
+        assertEquals(17, PoolConexionesConfig.tamanoBase(pool));
+
+        pool.setConexionesBaseDeDatos(40);
+        pool.setReplicas(4);
+        assertEquals(10, PoolConexionesConfig.tamanoBase(pool));
+
+        pool.setNucleosBaseDeDatos(0);
+        assertEquals(10, PoolConexionesConfig.tamanoBase(pool));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tamanoPoolConexiones_DeberiaRespetarElTamanoFijadoAMano() {
+        propiedades.getPool().setNucleosBaseDeDatos(2);
+        ObjectProvider<ProductoProperties> proveedor = mock(ObjectProvider.class);
+        when(proveedor.getObject()).thenReturn(propiedades);
+        BeanPostProcessor procesador = PoolConexionesConfig.tamanoPoolConexiones(proveedor);
+
+        try (HikariDataSource automatico = new HikariDataSource(); HikariDataSource fijo = new HikariDataSource()) {
+            fijo.setMaximumPoolSize(20);
+
+            procesador.postProcessBeforeInitialization(automatico, "dataSource");
+            procesador.postProcessBeforeInitialization(fijo, "dataSource");
+
+            assertEquals(5, automatico.getMaximumPoolSize());
+            assertEquals(5, automatico.getMinimumIdle());
+            assertEquals(20, fijo.getMaximumPoolSize());
+        }
+    }
+}
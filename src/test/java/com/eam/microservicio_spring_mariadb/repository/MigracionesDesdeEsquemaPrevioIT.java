@@ -0,0 +1,106 @@
+package com.eam.microservicio_spring_mariadb.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import org.testcontainers.containers.MariaDBContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Una base que ya estaba en marcha antes de las migraciones: la tabla productos tal como la
+// creaba Hibernate con ddl-auto=update sobre la entidad original, sin version ni actualizado_en.
+// Flyway la toma como versión 1 y el resto de migraciones tienen que dejarla igual que a una nueva.
+@SpringBootTest
+class MigracionesDesdeEsquemaPrevioIT {
+
+    // Se arranca y se prepara antes que el contexto de Spring, que migra al arrancar
+    static MariaDBContainer<?> mariadb = new MariaDBContainer<>("mariadb:10.6")
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    static {
+        mariadb.start();
+        crearEsquemaPrevio();
+    }
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mariadb::getJdbcUrl);
+        registry.add("spring.datasource.username", mariadb::getUsername);
+        registry.add("spring.datasource.password", mariadb::getPassword);
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Test
+    void migraciones_DeberianPartirDeLaLineaBaseYAplicarElResto() {
+        assertEquals(0, flyway.info().pending().length);
+
+        MigrationInfo[] aplicadas = flyway.info().applied();
+        assertTrue(aplicadas[0].getType().isBaseline());
+        assertEquals("1", aplicadas[0].getVersion().getVersion());
+        assertEquals(List.of("2", "3", "4"), Arrays.stream(aplicadas).skip(1)
+                .map(migracion -> migracion.getVersion().getVersion()).toList());
+    }
+
+    @Test
+    void columnasDeConcurrencia_DeberianAnadirseConservandoLasFilas() {
+        assertEquals(List.of("actualizado_en", "cantidad", "codigo", "id", "nombre", "precio", "version"),
+                jdbcTemplate.queryForList("""
+                        SELECT column_name FROM information_schema.columns
+                        WHERE table_schema = DATABASE() AND table_name = 'productos'
+                        ORDER BY column_name""", String.class));
+
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM productos WHERE codigo = 'P001'", Long.class));
+        assertEquals(7, productoRepository.findCantidadByCodigo("P001").orElseThrow());
+    }
+
+    @Test
+    void indicesDeBusqueda_DeberianCrearseSobreLaTablaPrevia() {
+        assertEquals(1, jdbcTemplate.queryForObject("""
+                SELECT COUNT(DISTINCT index_name) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'productos' AND index_name = 'ft_productos_nombre'""",
+                Integer.class));
+    }
+
+    private static void crearEsquemaPrevio() {
+        try (Connection conexion = DriverManager.getConnection(mariadb.getJdbcUrl(), mariadb.getUsername(),
+                mariadb.getPassword());
+             Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("""
+                    CREATE TABLE productos (
+                        cantidad INT NOT NULL,
+                        precio FLOAT(53) NOT NULL,
+                        id BIGINT NOT NULL AUTO_INCREMENT,
+                        codigo VARCHAR(255) NOT NULL,
+                        nombre VARCHAR(255) NOT NULL,
+                        PRIMARY KEY (id),
+                        CONSTRAINT UK_productos_codigo UNIQUE (codigo)
+                    ) ENGINE = InnoDB""");
+            sentencia.execute("INSERT INTO productos (codigo, nombre, precio, cantidad) VALUES ('P001', 'Camisa', 10.5, 7)");
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo crear el esquema previo a las migraciones", e);
+        }
+    }
+}
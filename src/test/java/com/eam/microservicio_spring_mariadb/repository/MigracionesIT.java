@@ -0,0 +1,110 @@
+package com.eam.microservicio_spring_mariadb.repository;
+
+import com.eam.microservicio_spring_mariadb.entity.Producto;
+
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// El esquema sale solo de las migraciones: si el contexto arranca, Hibernate (ddl-auto=validate)
+// ya aceptó las tablas. Aquí se comprueba además que están todos los índices de los que dependen
+// las consultas, con el mismo nombre y columnas que declara la entidad.
+@SpringBootTest
+@Testcontainers
+class MigracionesIT {
+
+    @Container
+    static MariaDBContainer<?> mariadb = new MariaDBContainer<>("mariadb:10.6")
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mariadb::getJdbcUrl);
+        registry.add("spring.datasource.username", mariadb::getUsername);
+        registry.add("spring.datasource.password", mariadb::getPassword);
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migraciones_DeberianEstarTodasAplicadas() {
+        assertEquals(0, flyway.info().pending().length);
+
+        MigrationInfo[] aplicadas = flyway.info().applied();
+        assertTrue(aplicadas.length >= 3);
+        assertTrue(Arrays.stream(aplicadas).allMatch(migracion -> migracion.getState().isApplied()
+                && !migracion.getState().isFailed()));
+    }
+
+    @Test
+    void indicesDeLaEntidad_DeberianExistirConSusColumnas() {
+        Table tabla = Producto.class.getAnnotation(Table.class);
+
+        for (Index indice : tabla.indexes()) {
+            List<String> columnas = Arrays.stream(indice.columnList().split(",")).map(String::trim).toList();
+            assertEquals(columnas, columnasDe(tabla.name(), indice.name()), indice.name());
+            assertFalse(esUnico(tabla.name(), indice.name()), indice.name());
+        }
+        for (UniqueConstraint restriccion : tabla.uniqueConstraints()) {
+            assertEquals(List.of(restriccion.columnNames()), columnasDe(tabla.name(), restriccion.name()),
+                    restriccion.name());
+            assertTrue(esUnico(tabla.name(), restriccion.name()), restriccion.name());
+        }
+    }
+
+    @Test
+    void indiceFulltext_DeberiaExistirParaBuscarPorTexto() {
+        assertEquals(List.of("nombre"), columnasDe("productos", "ft_productos_nombre"));
+        assertEquals("FULLTEXT", jdbcTemplate.queryForObject("""
+                SELECT DISTINCT index_type FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'productos' AND index_name = 'ft_productos_nombre'""",
+                String.class));
+    }
+
+    @Test
+    void tablasAuxiliares_DeberianExistirConSusIndices() {
+        assertEquals(List.of("creado_en"),
+                columnasDe("productos_invalidaciones", "idx_productos_invalidaciones_creado_en"));
+        assertEquals(List.of("segmento"), columnasDe("productos_stock_segmentos", "PRIMARY"));
+        assertEquals(List.of("aplicado_en"),
+                columnasDe("productos_stock_segmentos", "idx_productos_stock_segmentos_aplicado_en"));
+    }
+
+    private List<String> columnasDe(String tabla, String indice) {
+        return jdbcTemplate.queryForList("""
+                SELECT column_name FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+                ORDER BY seq_in_index""", String.class, tabla, indice);
+    }
+
+    private boolean esUnico(String tabla, String indice) {
+        Integer noUnico = jdbcTemplate.queryForObject("""
+                SELECT MAX(non_unique) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?""",
+                Integer.class, tabla, indice);
+        return noUnico != null && noUnico == 0;
+    }
+}
@@ -1,7 +1,19 @@
 package com.eam.microservicio_spring_mariadb.service;
 
+import com.eam.microservicio_spring_mariadb.cache.ProductoCache;
+import com.eam.microservicio_spring_mariadb.dto.FiltroProductos;
+import com.eam.microservicio_spring_mariadb.dto.PaginaProductos;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoEliminacion;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoLote;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoUpsert;
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
 import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.exception.PrecondicionFallidaException;
+import com.eam.microservicio_spring_mariadb.exception.StockInsuficienteException;
 import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
+import com.eam.microservicio_spring_mariadb.sql.ContadorSentencias;
+import com.eam.microservicio_spring_mariadb.sql.ConteoSentencias;
 
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +25,14 @@ import org.testcontainers.containers.MariaDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static com.eam.microservicio_spring_mariadb.sql.VerificacionSentencias.assertSentencias;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -42,9 +59,17 @@ class ProductoServiceIT {
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private ProductoCache productoCache;
+
+    @Autowired
+    private ContadorSentencias contadorSentencias;
+
     @BeforeEach
     void cleanDB() {
         productoRepository.deleteAll();
+        // deleteAll no pasa por el servicio, así que la caché se vacía a mano
+        productoCache.invalidarTodo();
     }
 
     // 1. Crear producto
@@ -75,7 +100,7 @@ class ProductoServiceIT {
     @Order(3)
     void listarProductos_DeberiaRetornarLista() {
         productoService.crearProducto(new Producto(null, "L001", "Zapatos", 90000.0, 2));
-        List<Producto> productos = productoService.listarProductos();
+        List<ProductoVista> productos = productoService.listarProductos();
 
         assertEquals(1, productos.size());
     }
@@ -95,9 +120,9 @@ class ProductoServiceIT {
     @Order(5)
     void obtenerPorCodigo_DeberiaRetornarProducto() {
         productoService.crearProducto(new Producto(null, "B001", "Blusa", 60000.0, 8));
-        Producto encontrado = productoService.obtenerPorCodigo("B001");
+        ProductoVista encontrado = productoService.obtenerPorCodigo("B001");
 
-        assertEquals("Blusa", encontrado.getNombre());
+        assertEquals("Blusa", encontrado.nombre());
     }
 
     @Test
@@ -172,4 +197,247 @@ class ProductoServiceIT {
 
         assertEquals("No se encontró el producto con el código proporcionado", ex.getMessage());
     }
+
+    // 6. Crear por lote
+    @Test
+    @Order(12)
+    void crearProductosLote_DeberiaInsertarLosNuevosYRechazarExistentes() {
+        productoService.crearProducto(new Producto(null, "LT01", "Existente", 1000.0, 1));
+
+        ResultadoLote resultado = productoService.crearProductosLote(List.of(
+                new Producto(null, "LT01", "Duplicado", 1000.0, 1),
+                new Producto(null, "LT02", "Nuevo uno", 2000.0, 2),
+                new Producto(null, "LT03", "Nuevo dos", 3000.0, 3)));
+
+        assertEquals(2, resultado.creados());
+        assertEquals(1, resultado.rechazados());
+        assertEquals("Nuevo dos", productoService.obtenerPorCodigo("LT03").nombre());
+    }
+
+    // 7. Upsert por lote
+    @Test
+    @Order(13)
+    void upsertProductosLote_DeberiaInsertarYActualizarPorCodigo() {
+        productoService.crearProducto(new Producto(null, "UP01", "Original", 1000.0, 1));
+
+        ResultadoUpsert resultado = productoService.upsertProductosLote(List.of(
+                new Producto(null, "UP01", "Modificado", 1500.0, 7),
+                new Producto(null, "UP02", "Nuevo", 2000.0, 2)));
+
+        assertEquals(1, resultado.insertados());
+        assertEquals(1, resultado.actualizados());
+        assertEquals("Modificado", productoService.obtenerPorCodigo("UP01").nombre());
+        assertEquals(7, productoService.obtenerPorCodigo("UP01").cantidad());
+        assertEquals("Nuevo", productoService.obtenerPorCodigo("UP02").nombre());
+    }
+
+    // 8. Concurrencia optimista
+    @Test
+    @Order(14)
+    void actualizarProducto_DeberiaRechazarUnaVersionObsoleta() {
+        Producto creado = productoService.crearProducto(new Producto(null, "OP01", "Original", 1000.0, 1));
+        long versionLeida = creado.getVersion();
+
+        productoService.actualizarProducto("OP01", new Producto(null, "OP01", "Primero", 1000.0, 2));
+
+        assertThrows(PrecondicionFallidaException.class, () -> {
+            productoService.actualizarProducto("OP01", new Producto(null, "OP01", "Segundo", 1000.0, 3),
+                    actual -> actual.getVersion() == versionLeida);
+        });
+        assertEquals("Primero", productoService.obtenerPorCodigo("OP01").nombre());
+    }
+
+    @Test
+    @Order(15)
+    void actualizarConReintento_DeberiaAplicarElCambio() {
+        productoService.crearProducto(new Producto(null, "OP02", "Original", 1000.0, 1));
+
+        Producto resultado = productoService.actualizarConReintento("OP02", new Producto(null, "OP02", "Reintentado", 1000.0, 5));
+
+        assertEquals("Reintentado", resultado.getNombre());
+        assertEquals(1L, resultado.getVersion());
+    }
+
+    // 9. Ajuste atómico de stock
+    @Test
+    @Order(16)
+    void ajustarStock_DeberiaSumarYRestarSinCargarLaEntidad() {
+        productoService.crearProducto(new Producto(null, "ST01", "Stock", 1000.0, 10));
+
+        assertEquals(15, productoService.ajustarStock("ST01", 5));
+        assertEquals(0, productoService.ajustarStock("ST01", -15));
+        assertThrows(StockInsuficienteException.class, () -> productoService.ajustarStock("ST01", -1));
+
+        ProductoVista producto = productoService.obtenerPorCodigo("ST01");
+        assertEquals(0, producto.cantidad());
+        assertEquals(2L, producto.version());
+    }
+
+    @Test
+    @Order(17)
+    void ajustarStock_NoDeberiaVenderDeMasConPeticionesConcurrentes() throws Exception {
+        productoService.crearProducto(new Producto(null, "ST02", "Stock", 1000.0, 10));
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> pedidos = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            pedidos.add(ejecutor.submit(() -> productoService.ajustarStock("ST02", -1)));
+        }
+
+        int aceptados = 0;
+        for (Future<Integer> pedido : pedidos) {
+            try {
+                pedido.get();
+                aceptados++;
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertInstanceOf(StockInsuficienteException.class, e.getCause());
+            }
+        }
+        ejecutor.shutdown();
+
+        assertEquals(10, aceptados);
+        assertEquals(0, productoRepository.findCantidadByCodigo("ST02").orElseThrow());
+    }
+
+    // Sentencias SQL por operación: fijan las idas y vueltas a la base de cada caso
+    @Test
+    @Order(18)
+    void crearProducto_DeberiaHacerUnSoloInsert() {
+        assertSentencias(contadorSentencias, ConteoSentencias.de(0, 1, 0, 0),
+                () -> productoService.crearProducto(new Producto(null, "SQ01", "Camisa", 50000.0, 10)));
+    }
+
+    @Test
+    @Order(19)
+    void obtenerPorCodigo_DeberiaLeerUnaVezYLuegoServirDesdeCache() {
+        productoService.crearProducto(new Producto(null, "SQ02", "Camisa", 50000.0, 10));
+
+        assertSentencias(contadorSentencias, ConteoSentencias.de(1, 0, 0, 0),
+                () -> productoService.obtenerPorCodigo("SQ02"));
+        assertSentencias(contadorSentencias, ConteoSentencias.NINGUNA,
+                () -> productoService.obtenerPorCodigo("SQ02"));
+    }
+
+    @Test
+    @Order(20)
+    void crearProductosLote_DeberiaUsarUnaConsultaYUnBatchSinImportarElTamano() {
+        List<Producto> lote = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lote.add(new Producto(null, "SQL" + i, "Producto " + i, 1000.0, 1));
+        }
+
+        assertSentencias(contadorSentencias, ConteoSentencias.de(1, 1, 0, 0),
+                () -> productoService.crearProductosLote(lote));
+    }
+
+    @Test
+    @Order(21)
+    void eliminarProducto_DeberiaHacerUnSoloDelete() {
+        productoService.crearProducto(new Producto(null, "SQ03", "Camisa", 50000.0, 10));
+
+        assertSentencias(contadorSentencias, ConteoSentencias.de(0, 0, 0, 1),
+                () -> productoService.eliminarProducto("SQ03"));
+    }
+
+    @Test
+    @Order(22)
+    void crearProducto_Concurrente_DeberiaCrearUnoYRechazarElRestoConMensajeDeDuplicado() throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+        List<Future<Producto>> altas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            altas.add(ejecutor.submit(() -> productoService.crearProducto(new Producto(null, "DUP1", "Camisa", 50000.0, 10))));
+        }
+
+        int creados = 0;
+        for (Future<Producto> alta : altas) {
+            try {
+                alta.get();
+                creados++;
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+                assertEquals("Ya existe un producto con el mismo código", e.getCause().getMessage());
+            }
+        }
+        ejecutor.shutdown();
+
+        assertEquals(1, creados);
+        assertTrue(productoRepository.existsByCodigo("DUP1"));
+    }
+
+    @Test
+    @Order(23)
+    void eliminarProductosLote_DeberiaBorrarLosExistentesConUnSoloDelete() {
+        productoService.crearProducto(new Producto(null, "DL01", "Camisa", 50000.0, 10));
+        productoService.crearProducto(new Producto(null, "DL02", "Pantalón", 80000.0, 5));
+        productoService.crearProducto(new Producto(null, "DL03", "Zapatos", 90000.0, 2));
+        // En caché antes de borrar: la eliminación debe invalidarlo
+        productoService.obtenerPorCodigo("DL01");
+
+        ResultadoEliminacion[] resultado = new ResultadoEliminacion[1];
+        assertSentencias(contadorSentencias, ConteoSentencias.de(0, 0, 0, 1),
+                () -> resultado[0] = productoService.eliminarProductosLote(List.of("DL01", "DL02", "NO_EXISTE")));
+
+        assertEquals(3, resultado[0].solicitados());
+        assertEquals(2, resultado[0].eliminados());
+        assertTrue(productoRepository.existsByCodigo("DL03"));
+        assertThrows(NoSuchElementException.class, () -> productoService.obtenerPorCodigo("DL01"));
+    }
+
+    @Test
+    @Order(24)
+    void buscarProductos_DeberiaFiltrarOrdenarYPaginarConUnaSolaConsulta() {
+        productoService.crearProducto(new Producto(null, "BQ01", "Camisa azul", 10.0, 3));
+        productoService.crearProducto(new Producto(null, "BQ02", "Camisa roja", 20.0, 30));
+        productoService.crearProducto(new Producto(null, "BQ03", "Camiseta azul", 20.0, 2));
+        productoService.crearProducto(new Producto(null, "BQ04", "Pantalón azul", 40.0, 1));
+
+        // Palabras completas o como prefijo, todas obligatorias (índice FULLTEXT)
+        PaginaProductos porTexto = productoService.buscarProductos(
+                new FiltroProductos(null, "azul cami", null, null, null, null), null, null, null);
+        assertEquals(List.of("BQ01", "BQ03"), porTexto.productos().stream().map(ProductoVista::codigo).toList());
+
+        // Prefijo de nombre sin distinguir mayúsculas
+        PaginaProductos porPrefijo = productoService.buscarProductos(
+                new FiltroProductos("camisa ", null, null, null, null, null), "nombre,desc", null, null);
+        assertEquals(List.of("BQ02", "BQ01"), porPrefijo.productos().stream().map(ProductoVista::codigo).toList());
+
+        // Rango de precio y stock bajo, recorrido de a dos filas por (precio desc, id desc)
+        FiltroProductos stockBajo = new FiltroProductos(null, null, 15.0, 50.0, null, 5);
+        PaginaProductos[] primera = new PaginaProductos[1];
+        assertSentencias(contadorSentencias, ConteoSentencias.de(1, 0, 0, 0),
+                () -> primera[0] = productoService.buscarProductos(stockBajo, "precio,desc", null, 1));
+        PaginaProductos segunda = productoService.buscarProductos(stockBajo, "precio,desc", primera[0].siguienteCursor(), 1);
+
+        assertEquals("BQ04", primera[0].productos().get(0).codigo());
+        assertEquals("BQ03", segunda.productos().get(0).codigo());
+        assertNull(segunda.siguienteCursor());
+    }
+
+    @Test
+    @Order(25)
+    void sugerirProductos_DeberiaSeguirLasAltasCambiosYBajasDelServicio() throws Exception {
+        productoService.crearProducto(new Producto(null, "SG01", "Linterna recargable", 30000.0, 4));
+        esperarSugerencias("linter", List.of("SG01"));
+
+        productoService.actualizarProducto("SG01", new Producto(null, "SG01", "Lámpara recargable", 30000.0, 4));
+        esperarSugerencias("lampara", List.of("SG01"));
+        assertTrue(productoService.sugerirProductos("linter", null).isEmpty());
+
+        productoService.eliminarProducto("SG01");
+        esperarSugerencias("lampara", List.of());
+    }
+
+    // El índice se actualiza en su propio hilo poco después del commit
+    private void esperarSugerencias(String texto, List<String> esperados) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        List<String> codigos;
+        do {
+            codigos = productoService.sugerirProductos(texto, null).stream().map(Sugerencia::codigo).toList();
+            if (codigos.equals(esperados)) {
+                return;
+            }
+            Thread.sleep(20);
+        } while (System.currentTimeMillis() < limite);
+        assertEquals(esperados, codigos);
+    }
 }
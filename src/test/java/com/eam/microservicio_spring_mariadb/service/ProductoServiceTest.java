@@ -4,18 +4,53 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import java.util.Collections;
 import java.util.NoSuchElementException;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+import com.eam.microservicio_spring_mariadb.busqueda.IndiceProductos;
+import com.eam.microservicio_spring_mariadb.cache.ProductoCache;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.BusInvalidacion;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.TransporteInvalidacionLocal;
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.dto.FiltroProductos;
+import com.eam.microservicio_spring_mariadb.dto.PaginaProductos;
+import com.eam.microservicio_spring_mariadb.dto.ProductoVista;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoEliminacion;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoItemLote;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoLote;
+import com.eam.microservicio_spring_mariadb.dto.ResultadoUpsert;
+import com.eam.microservicio_spring_mariadb.dto.Sugerencia;
+import com.eam.microservicio_spring_mariadb.repository.OrdenProductos;
 import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
 import com.eam.microservicio_spring_mariadb.service.ProductoService;
 import com.eam.microservicio_spring_mariadb.entity.Producto;
+import com.eam.microservicio_spring_mariadb.exception.PrecondicionFallidaException;
+import com.eam.microservicio_spring_mariadb.exception.StockInsuficienteException;
 
 @ExtendWith(MockitoExtension.class)
 class ProductoServiceTest {
@@ -23,13 +58,30 @@ class ProductoServiceTest {
     @Mock
     private ProductoRepository productoRepository;
 
+    @Spy
+    private ProductoProperties propiedades = new ProductoProperties();
+
+    @Spy
+    private ProductoCache productoCache = new ProductoCache(new ProductoProperties());
+
+    @Spy
+    private BusInvalidacion busInvalidacion = new BusInvalidacion(new TransporteInvalidacionLocal(), List.of(productoCache));
+
+    @Mock
+    private IndiceProductos indiceProductos;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private ProductoService productoService;
 
     @Test
     void crearProducto_DeberiaGuardarProductoCorrectamente() {
         Producto producto = new Producto(null, "P001", "Camisa", 50000.0, 10);
-        when(productoRepository.existsByCodigo("P001")).thenReturn(false);
         when(productoRepository.save(any())).thenReturn(producto);
 
         Producto resultado = productoService.crearProducto(producto);
@@ -37,19 +89,47 @@ class ProductoServiceTest {
         assertNotNull(resultado);
         assertEquals("P001", resultado.getCodigo());
         verify(productoRepository).save(producto);
+        // Un solo INSERT: la unicidad la comprueba el índice, no una consulta previa
+        verify(productoRepository, never()).existsByCodigo(any());
+    }
+
+    @Test
+    void crearProducto_DeberiaIgnorarIdYVersionEnviadosParaHacerSiemprePersist() {
+        Producto producto = new Producto(7L, "P001", "Camisa", 50000.0, 10);
+        producto.setVersion(3L);
+        when(productoRepository.save(any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        Producto resultado = productoService.crearProducto(producto);
+
+        assertNull(resultado.getId());
+        assertNull(resultado.getVersion());
     }
 
     @Test
     void crearProducto_DeberiaLanzarExcepcionSiCodigoYaExiste() {
         Producto producto = new Producto(null, "P001", "Camisa", 50000.0, 10);
-        when(productoRepository.existsByCodigo("P001")).thenReturn(true);
+        when(productoRepository.save(any())).thenThrow(violacion(ConstraintViolationException.ConstraintKind.UNIQUE));
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             productoService.crearProducto(producto);
         });
 
         assertEquals("Ya existe un producto con el mismo código", exception.getMessage());
-        verify(productoRepository, never()).save(any());
+        verify(busInvalidacion, never()).invalidar(anyString());
+    }
+
+    @Test
+    void crearProducto_OtraViolacionDeIntegridad_DeberiaPropagarse() {
+        Producto producto = new Producto(null, "P001", "Camisa", 50000.0, 10);
+        when(productoRepository.save(any())).thenThrow(violacion(ConstraintViolationException.ConstraintKind.OTHER));
+
+        assertThrows(DataIntegrityViolationException.class, () -> productoService.crearProducto(producto));
+    }
+
+    private static DataIntegrityViolationException violacion(ConstraintViolationException.ConstraintKind tipo) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Duplicate entry 'P001' for key 'codigo'",
+                        new SQLException("Duplicate entry", "23000", 1062), tipo, "codigo"));
     }
 
     @Test
@@ -61,56 +141,327 @@ class ProductoServiceTest {
         assertEquals("El producto no puede ser nulo", exception.getMessage());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void crearProductosLote_DeberiaInsertarSoloLosValidosYReportarCadaItem() {
+        List<Producto> lote = List.of(
+            new Producto(null, "P001", "Camisa", 50000.0, 10),
+            new Producto(null, "P002", "Pantalón", 80000.0, 5),
+            new Producto(null, "X", "Inválido", -1.0, 1),
+            new Producto(null, "P001", "Camisa repetida", 50000.0, 10),
+            new Producto(null, "P003", "Zapatos", 90000.0, 2)
+        );
+        when(productoRepository.findCodigosExistentes(any())).thenReturn(List.of("P002"));
+
+        ResultadoLote resultado = productoService.crearProductosLote(lote);
+
+        assertEquals(5, resultado.total());
+        assertEquals(2, resultado.creados());
+        assertEquals(3, resultado.rechazados());
+        assertEquals(ResultadoItemLote.Estado.CREADO, resultado.resultados().get(0).estado());
+        assertEquals("Ya existe un producto con el mismo código", resultado.resultados().get(1).mensaje());
+        assertEquals(ResultadoItemLote.Estado.RECHAZADO, resultado.resultados().get(2).estado());
+        assertEquals("El código está repetido dentro del lote", resultado.resultados().get(3).mensaje());
+        assertEquals(ResultadoItemLote.Estado.CREADO, resultado.resultados().get(4).estado());
+
+        // Una sola consulta IN para todos los códigos y un único insert por lote
+        verify(productoRepository, times(1)).findCodigosExistentes(any());
+        verify(productoRepository, never()).existsByCodigo(any());
+        ArgumentCaptor<List<Producto>> insertados = ArgumentCaptor.forClass(List.class);
+        verify(productoRepository).insertarLote(insertados.capture());
+        assertEquals(2, insertados.getValue().size());
+    }
+
+    @Test
+    void crearProductosLote_DeberiaLanzarExcepcionSiElLoteEstaVacio() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            productoService.crearProductosLote(List.of());
+        });
+
+        assertEquals("El lote de productos no puede estar vacío", exception.getMessage());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    void crearProductosLote_DeberiaLanzarExcepcionSiSuperaElMaximo() {
+        propiedades.getLote().setMaximoItems(1);
+        List<Producto> lote = List.of(
+            new Producto(null, "P001", "Camisa", 50000.0, 10),
+            new Producto(null, "P002", "Pantalón", 80000.0, 5)
+        );
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            productoService.crearProductosLote(lote);
+        });
+
+        assertEquals("El lote supera el máximo de 1 productos", exception.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void upsertProductosLote_DeberiaCalcularInsertadosYActualizadosSinCargarEntidades() {
+        List<Producto> lote = List.of(
+            new Producto(null, "P001", "Camisa", 50000.0, 10),
+            new Producto(null, "P002", "Pantalón", 80000.0, 5),
+            new Producto(null, "P001", "Camisa nueva", 52000.0, 12)
+        );
+        // P001 ya existía (2 filas afectadas) y P002 es nuevo (1 fila afectada)
+        when(productoRepository.upsertLote(any())).thenReturn(3L);
+
+        ResultadoUpsert resultado = productoService.upsertProductosLote(lote);
+
+        assertEquals(2, resultado.total());
+        assertEquals(1, resultado.insertados());
+        assertEquals(1, resultado.actualizados());
+
+        // El código repetido se envía una sola vez, con su última versión
+        ArgumentCaptor<List<Producto>> enviados = ArgumentCaptor.forClass(List.class);
+        verify(productoRepository).upsertLote(enviados.capture());
+        assertEquals(2, enviados.getValue().size());
+        assertEquals("Camisa nueva", enviados.getValue().get(0).getNombre());
+        verify(productoRepository, never()).findByCodigo(any());
+        verify(productoRepository, never()).save(any());
+    }
+
+    @Test
+    void upsertProductosLote_DeberiaRechazarElLoteSiUnProductoEsInvalido() {
+        List<Producto> lote = List.of(
+            new Producto(null, "P001", "Camisa", 50000.0, 10),
+            new Producto(null, "P002", "Pantalón", -5.0, 5)
+        );
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            productoService.upsertProductosLote(lote);
+        });
+
+        assertEquals("El producto en la posición 1 no es válido: El precio debe ser mayor que cero", exception.getMessage());
+        verify(productoRepository, never()).upsertLote(any());
+    }
+
     @Test
     void listarProductos_DeberiaRetornarListaDeProductos() {
-        List<Producto> lista = List.of(
-            new Producto(1L, "P001", "Camisa", 50000.0, 10),
-            new Producto(2L, "P002", "Pantalón", 80000.0, 5)
+        List<ProductoVista> lista = List.of(
+            vista(1L, "P001", "Camisa", 50000.0, 10),
+            vista(2L, "P002", "Pantalón", 80000.0, 5)
         );
-        when(productoRepository.findAll()).thenReturn(lista);
+        when(productoRepository.findVistas()).thenReturn(lista);
 
-        List<Producto> resultado = productoService.listarProductos();
+        List<ProductoVista> resultado = productoService.listarProductos();
 
         assertEquals(2, resultado.size());
-        assertEquals("P001", resultado.get(0).getCodigo());
-        verify(productoRepository).findAll();
+        assertEquals("P001", resultado.get(0).codigo());
+        verify(productoRepository).findVistas();
+        verify(productoRepository, never()).findAll();
     }
 
     @Test
     void listarProductos_DeberiaLanzarExcepcionSiNoHayProductos() {
-        when(productoRepository.findAll()).thenReturn(Collections.emptyList());
+        when(productoRepository.findVistas()).thenReturn(Collections.emptyList());
 
         Exception exception = assertThrows(IllegalStateException.class, () -> {
             productoService.listarProductos();
         });
 
         assertEquals("No hay productos registrados en la base de datos", exception.getMessage());
-        verify(productoRepository).findAll();
+        verify(productoRepository).findVistas();
+    }
+
+    @Test
+    void listarPagina_DeberiaRetornarCursorSiHayMasProductos() {
+        List<ProductoVista> lista = List.of(
+            vista(1L, "P001", "Camisa", 50000.0, 10),
+            vista(2L, "P002", "Pantalón", 80000.0, 5),
+            vista(3L, "P003", "Zapatos", 90000.0, 2)
+        );
+        when(productoRepository.findVistasDespuesDe(0L, Limit.of(3))).thenReturn(lista);
+
+        PaginaProductos pagina = productoService.listarPagina(null, 2);
+
+        assertEquals(2, pagina.productos().size());
+        assertEquals(2, pagina.tamano());
+        assertNotNull(pagina.siguienteCursor());
+
+        // El cursor devuelto debe continuar justo después del último id de la página
+        when(productoRepository.findVistasDespuesDe(2L, Limit.of(3))).thenReturn(List.of(lista.get(2)));
+
+        PaginaProductos siguiente = productoService.listarPagina(pagina.siguienteCursor(), 2);
+
+        assertEquals(1, siguiente.productos().size());
+        assertEquals("P003", siguiente.productos().get(0).codigo());
+        assertNull(siguiente.siguienteCursor());
+    }
+
+    @Test
+    void listarPagina_DeberiaLimitarElTamanoAlMaximoConfigurado() {
+        propiedades.getPaginacion().setTamanoMaximo(10);
+        when(productoRepository.findVistasDespuesDe(0L, Limit.of(11))).thenReturn(Collections.emptyList());
+
+        PaginaProductos pagina = productoService.listarPagina(null, 1000);
+
+        assertEquals(10, pagina.tamano());
+        assertTrue(pagina.productos().isEmpty());
+        assertNull(pagina.siguienteCursor());
+    }
+
+    @Test
+    void listarPagina_DeberiaLanzarExcepcionSiCursorEsInvalido() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            productoService.listarPagina("no-es-un-cursor", 10);
+        });
+
+        assertEquals("El cursor de paginación no es válido", exception.getMessage());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    void listarPagina_DeberiaLanzarExcepcionSiTamanoNoEsPositivo() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            productoService.listarPagina(null, 0);
+        });
+
+        assertEquals("El tamaño de página debe ser mayor que cero", exception.getMessage());
+    }
+
+    @Test
+    void buscarProductos_DeberiaPedirUnaFilaExtraYDevolverCursorDelUltimo() {
+        OrdenProductos orden = OrdenProductos.de("precio,desc");
+        when(productoRepository.buscarVistas(any(), eq(orden), eq(3))).thenReturn(List.of(
+            vista(4L, "P004", "Abrigo", 90000.0, 1),
+            vista(3L, "P003", "Zapatos", 80000.0, 2),
+            vista(2L, "P002", "Pantalón", 80000.0, 5)
+        ));
+
+        PaginaProductos pagina = productoService.buscarProductos(
+            new FiltroProductos(null, null, 50000.0, null, null, 5), "precio,desc", null, 2);
+
+        assertEquals(2, pagina.productos().size());
+        assertNotNull(pagina.siguienteCursor());
+
+        // El cursor solo vale para el mismo orden
+        when(productoRepository.buscarVistas(any(), eq(orden), eq(3))).thenReturn(List.of(vista(2L, "P002", "Pantalón", 80000.0, 5)));
+        PaginaProductos siguiente = productoService.buscarProductos(FiltroProductos.NINGUNO, "precio,desc", pagina.siguienteCursor(), 2);
+        Exception otroOrden = assertThrows(IllegalArgumentException.class,
+            () -> productoService.buscarProductos(FiltroProductos.NINGUNO, "precio", pagina.siguienteCursor(), 2));
+
+        assertEquals("P002", siguiente.productos().get(0).codigo());
+        assertNull(siguiente.siguienteCursor());
+        assertEquals("El cursor de paginación no es válido", otroOrden.getMessage());
+    }
+
+    @Test
+    void buscarProductos_DeberiaRechazarFiltrosYOrdenInvalidosSinConsultar() {
+        Exception precio = assertThrows(IllegalArgumentException.class, () -> productoService.buscarProductos(
+            new FiltroProductos(null, null, 100.0, 50.0, null, null), null, null, null));
+        Exception cantidad = assertThrows(IllegalArgumentException.class, () -> productoService.buscarProductos(
+            new FiltroProductos(null, null, null, null, 10, 5), null, null, null));
+        Exception texto = assertThrows(IllegalArgumentException.class, () -> productoService.buscarProductos(
+            new FiltroProductos(null, "a + b", null, null, null, null), null, null, null));
+        Exception orden = assertThrows(IllegalArgumentException.class,
+            () -> productoService.buscarProductos(null, "codigo,asc", null, null));
+
+        assertEquals("El precio mínimo no puede ser mayor que el máximo", precio.getMessage());
+        assertEquals("La cantidad mínima no puede ser mayor que la máxima", cantidad.getMessage());
+        assertEquals("La búsqueda de texto necesita al menos una palabra de 3 caracteres", texto.getMessage());
+        assertEquals("El orden de búsqueda no es válido: codigo,asc", orden.getMessage());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    void sugerirProductos_DeberiaConsultarElIndiceConElLimiteAcotado() {
+        List<Sugerencia> sugerencias = List.of(new Sugerencia("P001", "Camisa", 2.5));
+        when(indiceProductos.buscar("cam", 50)).thenReturn(sugerencias);
+        when(indiceProductos.buscar("cam", 10)).thenReturn(sugerencias);
+
+        assertEquals(sugerencias, productoService.sugerirProductos("cam", 500));
+        assertEquals(sugerencias, productoService.sugerirProductos("cam", null));
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    void sugerirProductos_DeberiaRechazarTextoVacioOLimiteNoPositivo() {
+        Exception vacio = assertThrows(IllegalArgumentException.class, () -> productoService.sugerirProductos(" ", null));
+        Exception limite = assertThrows(IllegalArgumentException.class, () -> productoService.sugerirProductos("cam", 0));
+
+        assertEquals("El texto de búsqueda no puede estar vacío", vacio.getMessage());
+        assertEquals("El límite de sugerencias debe ser mayor que cero", limite.getMessage());
+        verifyNoInteractions(indiceProductos);
+    }
+
+    @Test
+    void exportarProductos_DeberiaEntregarCadaFilaEnOrden() {
+        when(productoRepository.streamVistas()).thenReturn(Stream.of(
+            vista(1L, "P001", "Camisa", 50000.0, 10),
+            vista(2L, "P002", "Pantalón", 80000.0, 5),
+            vista(3L, "P003", "Zapatos", 90000.0, 2)
+        ));
+
+        List<String> codigos = new ArrayList<>();
+        long filas = productoService.exportarProductos(producto -> codigos.add(producto.codigo()));
+
+        assertEquals(3, filas);
+        assertEquals(List.of("P001", "P002", "P003"), codigos);
     }
 
     @Test
     void obtenerProductoPorCodigo_DeberiaRetornarProductoSiExiste() {
-        Producto producto = new Producto(1L, "P001", "Camisa", 50000.0, 10);
-        when(productoRepository.findByCodigo("P001")).thenReturn(Optional.of(producto));
+        ProductoVista producto = vista(1L, "P001", "Camisa", 50000.0, 10);
+        when(productoRepository.findVistaByCodigo("P001")).thenReturn(Optional.of(producto));
 
-        Producto resultado = productoService.obtenerPorCodigo("P001");
+        ProductoVista resultado = productoService.obtenerPorCodigo("P001");
 
         assertNotNull(resultado);
-        assertEquals("Camisa", resultado.getNombre());
-        assertEquals("P001", resultado.getCodigo());
-        verify(productoRepository).findByCodigo("P001");
+        assertEquals("Camisa", resultado.nombre());
+        assertEquals("P001", resultado.codigo());
+        verify(productoRepository).findVistaByCodigo("P001");
+        verify(productoRepository, never()).findByCodigo(any());
     }
 
     @Test
     void obtenerProductoPorCodigo_DeberiaLanzarExcepcionSiNoExiste() {
-        when(productoRepository.findByCodigo("P999")).thenReturn(Optional.empty());
+        when(productoRepository.findVistaByCodigo("P999")).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(NoSuchElementException.class, () -> {
             productoService.obtenerPorCodigo("P999");
         });
 
         assertEquals("No se encontró el producto con el código proporcionado", exception.getMessage());
-        verify(productoRepository).findByCodigo("P999");
+        verify(productoRepository).findVistaByCodigo("P999");
+    }
+
+    @Test
+    void obtenerProductoPorCodigo_DeberiaConsultarLaBaseUnaSolaVez() {
+        ProductoVista producto = vista(1L, "P001", "Camisa", 50000.0, 10);
+        when(productoRepository.findVistaByCodigo("P001")).thenReturn(Optional.of(producto));
+
+        productoService.obtenerPorCodigo("P001");
+        ProductoVista resultado = productoService.obtenerPorCodigo("P001");
+
+        assertEquals("Camisa", resultado.nombre());
+        verify(productoRepository, times(1)).findVistaByCodigo("P001");
+    }
+
+    @Test
+    void obtenerProductoPorCodigo_DeberiaCachearLosCodigosInexistentes() {
+        when(productoRepository.findVistaByCodigo("P999")).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> productoService.obtenerPorCodigo("P999"));
+        assertThrows(NoSuchElementException.class, () -> productoService.obtenerPorCodigo("P999"));
+
+        verify(productoRepository, times(1)).findVistaByCodigo("P999");
+    }
+
+    @Test
+    void crearProducto_DeberiaInvalidarElCodigoCacheadoComoInexistente() {
+        Producto producto = new Producto(null, "P001", "Camisa", 50000.0, 10);
+        when(productoRepository.findVistaByCodigo("P001"))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(vista(1L, "P001", "Camisa", 50000.0, 10)));
+        when(productoRepository.save(any())).thenReturn(producto);
+
+        assertThrows(NoSuchElementException.class, () -> productoService.obtenerPorCodigo("P001"));
+        productoService.crearProducto(producto);
+
+        assertEquals("Camisa", productoService.obtenerPorCodigo("P001").nombre());
     }
 
     @Test
@@ -156,26 +507,153 @@ class ProductoServiceTest {
         verify(productoRepository, never()).save(any());
     }
 
+    @Test
+    void actualizarProducto_DeberiaLanzarPrecondicionFallidaSiLaVersionNoCoincide() {
+        Producto existente = new Producto(1L, "P001", "Camisa", 50000.0, 10);
+        existente.setVersion(4L);
+        Producto actualizado = new Producto(null, "P001", "Camisa actualizada", 55000.0, 15);
+
+        when(productoRepository.findByCodigo("P001")).thenReturn(Optional.of(existente));
+
+        Exception exception = assertThrows(PrecondicionFallidaException.class, () -> {
+            productoService.actualizarProducto("P001", actualizado, producto -> producto.getVersion() == 3L);
+        });
+
+        assertEquals("El producto fue modificado por otra petición", exception.getMessage());
+        verify(productoRepository, never()).save(any());
+    }
+
+    @Test
+    void actualizarConReintento_DeberiaReintentarTrasUnConflictoDeVersion() {
+        propiedades.getConcurrencia().setEsperaBase(Duration.ZERO);
+        Producto actualizado = new Producto(null, "P001", "Camisa actualizada", 55000.0, 15);
+
+        when(productoRepository.findByCodigo("P001"))
+            .thenReturn(Optional.of(new Producto(1L, "P001", "Camisa", 50000.0, 10)))
+            .thenReturn(Optional.of(new Producto(1L, "P001", "Camisa", 50000.0, 9)));
+        when(productoRepository.save(any()))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Producto.class, 1L))
+            .thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        Producto resultado = productoService.actualizarConReintento("P001", actualizado);
+
+        assertEquals(15, resultado.getCantidad());
+        verify(productoRepository, times(2)).findByCodigo("P001");
+        verify(productoRepository, times(2)).save(any());
+    }
+
+    @Test
+    void actualizarConReintento_DeberiaPropagarElConflictoSiSeAgotanLosIntentos() {
+        propiedades.getConcurrencia().setEsperaBase(Duration.ZERO);
+        propiedades.getConcurrencia().setReintentosMaximos(3);
+        Producto actualizado = new Producto(null, "P001", "Camisa actualizada", 55000.0, 15);
+
+        when(productoRepository.findByCodigo("P001"))
+            .thenAnswer(invocacion -> Optional.of(new Producto(1L, "P001", "Camisa", 50000.0, 10)));
+        when(productoRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Producto.class, 1L));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            productoService.actualizarConReintento("P001", actualizado);
+        });
+
+        verify(productoRepository, times(3)).save(any());
+    }
+
+    @Test
+    void ajustarStock_DeberiaRetornarLaNuevaCantidad() {
+        when(productoRepository.ajustarCantidad(eq("P001"), eq(-3), any())).thenReturn(1);
+        when(productoRepository.findCantidadByCodigo("P001")).thenReturn(Optional.of(7));
+
+        int cantidad = productoService.ajustarStock("P001", -3);
+
+        assertEquals(7, cantidad);
+        verify(productoRepository, never()).findByCodigo(any());
+        verify(productoRepository, never()).save(any());
+    }
+
+    @Test
+    void ajustarStock_DeberiaRechazarSiNoHayStockSuficiente() {
+        when(productoRepository.ajustarCantidad(eq("P001"), eq(-5), any())).thenReturn(0);
+        when(productoRepository.findCantidadByCodigo("P001")).thenReturn(Optional.of(2));
+
+        Exception exception = assertThrows(StockInsuficienteException.class, () -> {
+            productoService.ajustarStock("P001", -5);
+        });
+
+        assertEquals("Stock insuficiente: hay 2 unidades y se pidió retirar 5", exception.getMessage());
+    }
+
+    @Test
+    void ajustarStock_DeberiaLanzarExcepcionSiNoExiste() {
+        when(productoRepository.ajustarCantidad(eq("P999"), eq(1), any())).thenReturn(0);
+        when(productoRepository.findCantidadByCodigo("P999")).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> {
+            productoService.ajustarStock("P999", 1);
+        });
+    }
+
+    @Test
+    void ajustarStock_DeberiaRechazarUnAjusteCero() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            productoService.ajustarStock("P001", 0);
+        });
+
+        assertEquals("El ajuste de stock no puede ser cero", exception.getMessage());
+        verify(productoRepository, never()).ajustarCantidad(any(), anyInt(), any());
+    }
+
     @Test
     void eliminarProductoPorCodigo_DeberiaEliminarProductoSiExiste() {
-        Producto producto = new Producto(1L, "P001", "Camisa", 50000.0, 10);
-        when(productoRepository.findByCodigo("P001")).thenReturn(Optional.of(producto));
+        when(productoRepository.deleteByCodigo("P001")).thenReturn(1);
 
         productoService.eliminarProducto("P001");
 
-        verify(productoRepository).delete(producto);
+        // Un único DELETE por código, sin cargar antes la entidad
+        verify(productoRepository).deleteByCodigo("P001");
+        verify(productoRepository, never()).findByCodigo(any());
+        verify(busInvalidacion).invalidar("P001");
     }
 
     @Test
     void eliminarProductoPorCodigo_DeberiaLanzarExcepcionSiNoExiste() {
-        when(productoRepository.findByCodigo("P999")).thenReturn(Optional.empty());
+        when(productoRepository.deleteByCodigo("P999")).thenReturn(0);
 
         Exception exception = assertThrows(NoSuchElementException.class, () -> {
             productoService.eliminarProducto("P999");
         });
 
         assertEquals("No se encontró el producto con el código proporcionado", exception.getMessage());
-        verify(productoRepository, never()).delete(any());
+        verify(busInvalidacion, never()).invalidar(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eliminarProductosLote_DeberiaBorrarConUnSoloDeleteSinRepetirCodigos() {
+        when(productoRepository.deleteByCodigoIn(any())).thenReturn(2);
+
+        ResultadoEliminacion resultado = productoService.eliminarProductosLote(List.of("P001", "P002", "P001", "P404"));
+
+        assertEquals(3, resultado.solicitados());
+        assertEquals(2, resultado.eliminados());
+        ArgumentCaptor<Collection<String>> codigos = ArgumentCaptor.forClass(Collection.class);
+        verify(productoRepository, times(1)).deleteByCodigoIn(codigos.capture());
+        assertEquals(List.of("P001", "P002", "P404"), List.copyOf(codigos.getValue()));
     }
 
+    @Test
+    void eliminarProductosLote_DeberiaRechazarLoteVacioOCodigosEnBlanco() {
+        Exception vacio = assertThrows(IllegalArgumentException.class,
+                () -> productoService.eliminarProductosLote(List.of()));
+        Exception enBlanco = assertThrows(IllegalArgumentException.class,
+                () -> productoService.eliminarProductosLote(Arrays.asList("P001", " ")));
+
+        assertEquals("El lote de códigos no puede estar vacío", vacio.getMessage());
+        assertEquals("El código en la posición 1 no puede estar vacío", enBlanco.getMessage());
+        verifyNoInteractions(productoRepository);
+    }
+
+    private static ProductoVista vista(Long id, String codigo, String nombre, Double precio, Integer cantidad) {
+        return ProductoVista.de(new Producto(id, codigo, nombre, precio, cantidad));
+    }
 }
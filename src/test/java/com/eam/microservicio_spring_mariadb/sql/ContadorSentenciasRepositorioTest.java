@@ -0,0 +1,81 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContadorSentenciasRepositorioTest {
+
+    private final ContadorSentencias contador = new ContadorSentencias();
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+    @Test
+    void invoke_DeberiaPublicarLasSentenciasDelMetodo() {
+        RepositorioPrueba repositorio = repositorio(() -> {
+            ejecutar("select 1");
+            ejecutar("select 2");
+            ejecutar("update productos set cantidad = 1");
+        });
+
+        repositorio.buscarTodo();
+        repositorio.buscarTodo();
+
+        DistributionSummary selects = sentencias("buscarTodo", "select");
+        assertEquals(2, selects.count());
+        assertEquals(4, selects.totalAmount());
+        assertEquals(2, sentencias("buscarTodo", "update").totalAmount());
+        assertEquals(0, sentencias("buscarTodo", "insert").totalAmount());
+    }
+
+    @Test
+    void invoke_DeberiaContarTambienEnLaMedicionExterna() {
+        RepositorioPrueba repositorio = repositorio(() -> ejecutar("select 1"));
+
+        ConteoSentencias peticion = contador.medir(repositorio::buscarTodo);
+
+        assertEquals(ConteoSentencias.de(1, 0, 0, 0), peticion);
+        assertEquals(1, sentencias("buscarTodo", "select").totalAmount());
+    }
+
+    @Test
+    void invoke_DeberiaPublicarAunqueElMetodoFalle() {
+        RepositorioPrueba repositorio = repositorio(() -> {
+            ejecutar("select 1");
+            throw new IllegalStateException("fallo");
+        });
+
+        assertThrows(IllegalStateException.class, repositorio::buscarTodo);
+
+        assertEquals(1, sentencias("buscarTodo", "select").totalAmount());
+    }
+
+    private RepositorioPrueba repositorio(RepositorioPrueba implementacion) {
+        ProxyFactory fabrica = new ProxyFactory(implementacion);
+        fabrica.addInterface(RepositorioPrueba.class);
+        fabrica.addAdvice(new ContadorSentenciasRepositorio(contador, registro, RepositorioPrueba.class));
+        return (RepositorioPrueba) fabrica.getProxy();
+    }
+
+    private DistributionSummary sentencias(String metodo, String tipo) {
+        return registro.get("productos.sql.sentencias.repositorio")
+                .tags("repository", "RepositorioPrueba", "method", metodo, "tipo", tipo)
+                .summary();
+    }
+
+    private void ejecutar(String sql) {
+        contador.afterQuery(new ExecutionInfo(), List.of(new QueryInfo(sql)));
+    }
+
+    interface RepositorioPrueba {
+
+        void buscarTodo();
+    }
+}
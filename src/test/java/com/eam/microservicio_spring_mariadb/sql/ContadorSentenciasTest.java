@@ -0,0 +1,62 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContadorSentenciasTest {
+
+    private final ContadorSentencias contador = new ContadorSentencias();
+
+    @Test
+    void medir_DeberiaContarPorTipoDeSentencia() {
+        ConteoSentencias conteo = contador.medir(() -> {
+            ejecutar("select p1_0.id from productos p1_0 where p1_0.codigo=?");
+            ejecutar("  SELECT 1");
+            ejecutar("insert into productos (codigo) values (?)");
+            ejecutar("UPDATE productos SET cantidad = cantidad + ? WHERE codigo = ?");
+            ejecutar("delete from productos where id=? and version=?");
+            ejecutar("CREATE TABLE IF NOT EXISTS t (id INT)");
+        });
+
+        assertEquals(new ConteoSentencias(2, 1, 1, 1, 1), conteo);
+        assertEquals(6, conteo.total());
+    }
+
+    @Test
+    void afterQuery_SinMedicionAbierta_NoDeberiaContar() {
+        ejecutar("select 1");
+
+        assertEquals(ConteoSentencias.NINGUNA, contador.medir(() -> { }));
+    }
+
+    @Test
+    void medir_Anidada_DeberiaSumarLasInternasEnLaExterna() {
+        ConteoSentencias[] interna = new ConteoSentencias[1];
+        ConteoSentencias externa = contador.medir(() -> {
+            ejecutar("select 1");
+            interna[0] = contador.medir(() -> ejecutar("insert into productos (codigo) values (?)"));
+            ejecutar("select 2");
+        });
+
+        assertEquals(ConteoSentencias.de(0, 1, 0, 0), interna[0]);
+        assertEquals(ConteoSentencias.de(2, 1, 0, 0), externa);
+    }
+
+    @Test
+    void medir_NoDeberiaContarSentenciasDeOtrosHilos() {
+        ConteoSentencias conteo = contador.medir(() ->
+                CompletableFuture.runAsync(() -> ejecutar("select 1")).join());
+
+        assertEquals(ConteoSentencias.NINGUNA, conteo);
+    }
+
+    private void ejecutar(String sql) {
+        contador.afterQuery(new ExecutionInfo(), List.of(new QueryInfo(sql)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistroConsultasLentasTest {
+
+    private final AtomicLong reloj = new AtomicLong(10_000);
+
+    private RegistroConsultasLentas registro;
+
+    @BeforeEach
+    void setUp() {
+        ProductoProperties.ConsultasLentas configuracion = new ProductoProperties.ConsultasLentas();
+        configuracion.setUmbral(Duration.ofMillis(100));
+        configuracion.setMaximoPorSegundo(2);
+        registro = new RegistroConsultasLentas(configuracion, reloj::get);
+    }
+
+    @Test
+    void afterQuery_DeberiaIgnorarConsultasPorDebajoDelUmbral() {
+        ejecutar(99);
+
+        assertEquals(0L, registro.estado().get("consultasLentas"));
+    }
+
+    @Test
+    void afterQuery_DeberiaMuestrearAvisosPorSegundo() {
+        for (int i = 0; i < 5; i++) {
+            ejecutar(150);
+        }
+        assertEquals(5L, registro.estado().get("consultasLentas"));
+        assertEquals(3L, registro.estado().get("avisosOmitidos"));
+
+        // En el segundo siguiente vuelve a haber cupo
+        reloj.addAndGet(1_000);
+        ejecutar(150);
+        assertEquals(3L, registro.estado().get("avisosOmitidos"));
+    }
+
+    @Test
+    void configurar_DeberiaCambiarUmbralYDeshabilitarEnCaliente() {
+        registro.configurar(null, Duration.ofMillis(10), null);
+        ejecutar(20);
+        assertEquals(1L, registro.estado().get("consultasLentas"));
+        assertEquals("PT0.01S", registro.estado().get("umbral"));
+
+        registro.configurar(false, null, null);
+        ejecutar(5_000);
+        assertEquals(1L, registro.estado().get("consultasLentas"));
+    }
+
+    @Test
+    void configurar_DeberiaRechazarUmbralNegativo() {
+        Exception ex = assertThrows(IllegalArgumentException.class,
+                () -> registro.configurar(null, Duration.ofMillis(-1), null));
+
+        assertEquals("El umbral de consultas lentas no puede ser negativo", ex.getMessage());
+    }
+
+    private void ejecutar(long milisegundos) {
+        ExecutionInfo ejecucion = new ExecutionInfo();
+        ejecucion.setElapsedTime(milisegundos);
+        ejecucion.setSuccess(true);
+        registro.afterQuery(ejecucion, List.of(new QueryInfo("SELECT * FROM productos WHERE codigo = ?")));
+    }
+}
@@ -0,0 +1,17 @@
+package com.eam.microservicio_spring_mariadb.sql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Apoyo para tests de integración: fija el número exacto de sentencias SQL de una operación,
+// para que un N+1 o una ida y vuelta de más rompa el test en lugar de llegar a producción.
+public final class VerificacionSentencias {
+
+    private VerificacionSentencias() {
+    }
+
+    public static void assertSentencias(ContadorSentencias contador, ConteoSentencias esperado, Runnable accion) {
+        ConteoSentencias real = contador.medir(accion);
+        assertEquals(esperado, real,
+                () -> "Sentencias SQL inesperadas: se esperaba " + esperado + " y se ejecutaron " + real);
+    }
+}
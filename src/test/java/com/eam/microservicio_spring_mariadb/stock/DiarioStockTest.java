@@ -0,0 +1,43 @@
+package com.eam.microservicio_spring_mariadb.stock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiarioStockTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void rotar_DeberiaCerrarElSegmentoConLosRegistrosDurables() throws Exception {
+        try (DiarioStock diario = new DiarioStock(directorio)) {
+            assertFalse(diario.tieneRegistros());
+
+            diario.registrar("P001", -2);
+            diario.registrar("P002", 5);
+            diario.registrar("P001", -1);
+            assertTrue(diario.tieneRegistros());
+
+            Path cerrado = diario.rotar();
+
+            assertFalse(diario.tieneRegistros());
+            assertEquals(Map.of("P001", -3L, "P002", 5L), DiarioStock.leer(cerrado));
+            assertEquals(List.of(cerrado), diario.segmentosCerrados());
+        }
+    }
+
+    @Test
+    void leer_DeberiaDescartarUnaUltimaLineaIncompletaYLosDeltasNulos() throws Exception {
+        Path segmento = directorio.resolve("anterior-00000001" + DiarioStock.EXTENSION);
+        Files.writeString(segmento, "P001;4\nP002;3\nP002;-3\nP001;-1\nP003;-");
+
+        assertEquals(Map.of("P001", 3L), DiarioStock.leer(segmento));
+    }
+}
@@ -0,0 +1,231 @@
+package com.eam.microservicio_spring_mariadb.stock;
+
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.BusInvalidacion;
+import com.eam.microservicio_spring_mariadb.cache.invalidacion.TransporteInvalidacionLocal;
+import com.eam.microservicio_spring_mariadb.config.ProductoProperties;
+import com.eam.microservicio_spring_mariadb.exception.StockInsuficienteException;
+import com.eam.microservicio_spring_mariadb.repository.ProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class EscrituraDiferidaStockTest {
+
+    @TempDir
+    Path directorio;
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final List<List<String>> invalidados = new ArrayList<>();
+
+    private EscrituraDiferidaStock escrituraDiferida;
+
+    @BeforeEach
+    void setUp() {
+        ProductoProperties propiedades = new ProductoProperties();
+        propiedades.getStock().getEscrituraDiferida().setDirectorioDiario(directorio.toString());
+        // El planificador no llega a dispararse: cada prueba vacía a mano
+        propiedades.getStock().getEscrituraDiferida().setRetrasoMaximo(Duration.ofHours(1));
+
+        BusInvalidacion bus = new BusInvalidacion(new TransporteInvalidacionLocal(),
+                List.of(codigos -> invalidados.add(List.copyOf(codigos))));
+        escrituraDiferida = new EscrituraDiferidaStock(productoRepository, jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), bus, propiedades);
+
+        when(productoRepository.findCantidadByCodigo("P001")).thenReturn(Optional.of(10));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        escrituraDiferida.detener();
+    }
+
+    @Test
+    void vaciar_DeberiaAplicarUnSoloDeltaPorCodigo() throws Exception {
+        escrituraDiferida.iniciar();
+        when(productoRepository.leerCantidades(any())).thenReturn(Map.of("P001", 9));
+
+        assertEquals(9, escrituraDiferida.ajustar("P001", -1));
+        assertEquals(7, escrituraDiferida.ajustar("P001", -2));
+        assertEquals(9, escrituraDiferida.ajustar("P001", 2));
+        verify(productoRepository, never()).ajustarCantidades(anyMap());
+
+        escrituraDiferida.vaciar();
+
+        verify(productoRepository).ajustarCantidades(Map.of("P001", -1L));
+        assertEquals(List.of(List.of("P001")), invalidados);
+        // Solo queda el segmento abierto
+        try (var archivos = Files.list(directorio)) {
+            assertEquals(1, archivos.count());
+        }
+    }
+
+    @Test
+    void ajustar_DeberiaRechazarLaSobreventaSinRegistrarla() throws Exception {
+        escrituraDiferida.iniciar();
+
+        escrituraDiferida.ajustar("P001", -8);
+        Exception exception = assertThrows(StockInsuficienteException.class, () -> {
+            escrituraDiferida.ajustar("P001", -3);
+        });
+        assertEquals("Stock insuficiente: hay 2 unidades y se pidió retirar 3", exception.getMessage());
+
+        when(productoRepository.leerCantidades(any())).thenReturn(Map.of("P001", 2));
+        escrituraDiferida.vaciar();
+
+        verify(productoRepository).ajustarCantidades(Map.of("P001", -8L));
+    }
+
+    @Test
+    void ajustar_DeberiaLanzarExcepcionSiElProductoNoExiste() throws Exception {
+        escrituraDiferida.iniciar();
+        when(productoRepository.findCantidadByCodigo("P999")).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> escrituraDiferida.ajustar("P999", 1));
+    }
+
+    @Test
+    void vaciar_DeberiaConservarLosDeltasSiLaBaseFalla() throws Exception {
+        escrituraDiferida.iniciar();
+        when(productoRepository.leerCantidades(any())).thenReturn(Map.of("P001", 6));
+        doThrow(new QueryTimeoutException("caída")).doReturn(Set.of()).when(productoRepository).ajustarCantidades(anyMap());
+
+        escrituraDiferida.ajustar("P001", -3);
+        assertThrows(QueryTimeoutException.class, () -> escrituraDiferida.vaciar());
+
+        escrituraDiferida.ajustar("P001", -1);
+        escrituraDiferida.vaciar();
+
+        verify(productoRepository).ajustarCantidades(Map.of("P001", -4L));
+    }
+
+    @Test
+    void vaciar_NoDeberiaReaplicarSiElVaciadoAnteriorLlegoAConfirmarse() throws Exception {
+        escrituraDiferida.iniciar();
+        when(productoRepository.leerCantidades(any())).thenReturn(Map.of("P001", 6));
+        // El commit llega a la base pero la respuesta se pierde
+        doThrow(new QueryTimeoutException("respuesta perdida")).when(jdbcTemplate).batchUpdate(any(String.class), anyList());
+
+        escrituraDiferida.ajustar("P001", -4);
+        assertThrows(QueryTimeoutException.class, () -> escrituraDiferida.vaciar());
+
+        reset(jdbcTemplate);
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Integer.class), any(Object[].class))).thenReturn(1);
+        escrituraDiferida.ajustar("P001", -1);
+        escrituraDiferida.vaciar();
+
+        // El segundo vaciado solo lleva su propio ajuste y su propio segmento
+        verify(productoRepository).ajustarCantidades(Map.of("P001", -1L));
+        verify(jdbcTemplate).batchUpdate(any(String.class), argThat((List<Object[]> segmentos) -> segmentos.size() == 1));
+    }
+
+    @Test
+    void vaciar_DeberiaDevolverALaVistaLasRetiradasQueLaBaseRechaza() throws Exception {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        escrituraDiferida.bindTo(registro);
+        escrituraDiferida.iniciar();
+        escrituraDiferida.ajustar("P001", -6);
+
+        // Otra instancia vendió 8 unidades: la base tiene 2 y no acepta retirar 6
+        when(productoRepository.ajustarCantidades(anyMap())).thenReturn(Set.of("P001"));
+        when(productoRepository.leerCantidades(any())).thenReturn(Map.of("P001", 2));
+        escrituraDiferida.vaciar();
+
+        assertEquals(1, registro.get("productos.stock.rechazados").functionCounter().count());
+        assertThrows(StockInsuficienteException.class, () -> escrituraDiferida.ajustar("P001", -3));
+        assertEquals(0, escrituraDiferida.ajustar("P001", -2));
+    }
+
+    @Test
+    void vaciar_DeberiaCorregirLaVistaConLosCambiosDeOtrasInstancias() throws Exception {
+        escrituraDiferida.iniciar();
+        escrituraDiferida.ajustar("P001", -5);
+
+        // Otra instancia repuso 20 unidades mientras tanto
+        when(productoRepository.leerCantidades(any())).thenReturn(Map.of("P001", 25));
+        escrituraDiferida.vaciar();
+
+        assertEquals(10, escrituraDiferida.ajustar("P001", -15));
+    }
+
+    @Test
+    void iniciar_DeberiaAplicarLosSegmentosDeUnArranqueAnterior() throws Exception {
+        Path anterior = directorio.resolve("anterior-00000001" + DiarioStock.EXTENSION);
+        Files.writeString(anterior, "P001;-2\nP002;5\nP001;-1\nP003;");
+
+        escrituraDiferida.iniciar();
+
+        verify(productoRepository).ajustarCantidades(Map.of("P001", -3L, "P002", 5L));
+        assertFalse(Files.exists(anterior));
+        assertEquals(1, invalidados.size());
+    }
+
+    @Test
+    void iniciar_NoDeberiaReaplicarUnSegmentoYaRegistrado() throws Exception {
+        Path anterior = directorio.resolve("anterior-00000001" + DiarioStock.EXTENSION);
+        Files.writeString(anterior, "P001;-2\n");
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Integer.class), any(Object[].class))).thenReturn(1);
+
+        escrituraDiferida.iniciar();
+
+        verify(productoRepository, never()).ajustarCantidades(anyMap());
+        assertFalse(Files.exists(anterior));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ajustar_DeberiaAcumularSinPerderDeltasConHilosConcurrentes() throws Exception {
+        escrituraDiferida.iniciar();
+        when(productoRepository.leerCantidades(any())).thenReturn(Map.of("P001", 8010));
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int hilo = 0; hilo < 8; hilo++) {
+            tareas.add(ejecutor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    escrituraDiferida.ajustar("P001", 1);
+                }
+            }));
+        }
+        // Un vaciado en mitad de la ráfaga no debe perder ni duplicar ajustes
+        escrituraDiferida.vaciar();
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        ejecutor.shutdown();
+        escrituraDiferida.vaciar();
+
+        long aplicado = mockingDetails(productoRepository).getInvocations().stream()
+                .filter(invocacion -> invocacion.getMethod().getName().equals("ajustarCantidades"))
+                .mapToLong(invocacion -> ((Map<String, Long>) invocacion.getArgument(0)).get("P001"))
+                .sum();
+        assertEquals(8000, aplicado);
+    }
+}